@@ -0,0 +1,145 @@
+package bguspl.set;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Formatter;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+
+/**
+ * A log handler that hands the records to a background writer thread through a lock-free ring buffer, so the game
+ * threads never format messages or wait for the disk. The writer publishes the records to the target handler.
+ * If the ring is full the record is dropped (and counted) rather than blocking the game.
+ */
+public class AsyncLogHandler extends Handler {
+
+    private static final int DEFAULT_CAPACITY = 1 << 14;
+    private static final long FLUSH_TIMEOUT_NANOS = TimeUnit.SECONDS.toNanos(5);
+
+    private final Handler target;
+    private final AtomicReferenceArray<LogRecord> ring;
+    private final int mask;
+
+    /**
+     * The next ring entry to claim (by the game threads) and to write (by the writer thread only).
+     */
+    private final AtomicLong tail = new AtomicLong();
+    private volatile long head = 0;
+
+    private final LongAdder dropped = new LongAdder();
+    private final Thread writer;
+    private volatile boolean writerIdle = false;
+    private volatile boolean closed = false;
+
+    public AsyncLogHandler(Handler target) {
+        this(target, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param target   - the handler the records are written to.
+     * @param capacity - the number of records the ring holds (rounded up to a power of 2).
+     */
+    public AsyncLogHandler(Handler target, int capacity) {
+        this.target = target;
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        this.ring = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+        writer = new Thread(this::writeLoop, "log-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    @Override
+    public void publish(LogRecord record) {
+        if (closed || !isLoggable(record))
+            return;
+        long t;
+        do {
+            t = tail.get();
+            if (t - head > mask) { // the ring is full
+                dropped.increment();
+                return;
+            }
+        } while (!tail.compareAndSet(t, t + 1));
+        ring.set((int) (t & mask), record);
+        if (writerIdle)
+            LockSupport.unpark(writer);
+    }
+
+    /**
+     * Waits (for a bounded time) until the writer wrote all the records published so far, then flushes the target.
+     */
+    @Override
+    public void flush() {
+        long until = tail.get();
+        long deadline = System.nanoTime() + FLUSH_TIMEOUT_NANOS;
+        while (head < until && writer.isAlive() && System.nanoTime() < deadline) {
+            LockSupport.unpark(writer);
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+        }
+        target.flush();
+    }
+
+    @Override
+    public void close() throws SecurityException {
+        flush();
+        closed = true;
+        LockSupport.unpark(writer);
+        try {
+            writer.join(TimeUnit.NANOSECONDS.toMillis(FLUSH_TIMEOUT_NANOS));
+        } catch (InterruptedException ignored) {
+            Thread.currentThread().interrupt();
+        }
+        long lost = dropped.sum();
+        if (lost > 0)
+            target.publish(new LogRecord(Level.WARNING, lost + " log records were dropped (log buffer full)."));
+        target.close();
+    }
+
+    @Override
+    public synchronized void setFormatter(Formatter newFormatter) throws SecurityException {
+        super.setFormatter(newFormatter);
+        target.setFormatter(newFormatter); // the target formats the records on the writer thread
+    }
+
+    /**
+     * @return - the number of records dropped because the ring was full.
+     */
+    public long dropped() {
+        return dropped.sum();
+    }
+
+    private void writeLoop() {
+        while (!closed || head < tail.get()) {
+            if (!writeAvailable()) {
+                writerIdle = true;
+                if (head == tail.get() && !closed) // check again, a record may have been published meanwhile
+                    LockSupport.parkNanos(this, TimeUnit.MILLISECONDS.toNanos(100));
+                writerIdle = false;
+            }
+        }
+    }
+
+    /**
+     * Writes the records that were published, in order.
+     *
+     * @return - true iff at least one record was written.
+     */
+    private boolean writeAvailable() {
+        boolean wrote = false;
+        while (true) {
+            int index = (int) (head & mask);
+            LogRecord record = ring.get(index);
+            if (record == null) // nothing more (or claimed but not yet stored)
+                return wrote;
+            ring.lazySet(index, null);
+            head++; // only the writer thread writes head
+            target.publish(record);
+            wrote = true;
+        }
+    }
+}
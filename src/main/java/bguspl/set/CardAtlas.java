@@ -0,0 +1,102 @@
+package bguspl.set;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * All the card images packed into a single resource, so they are found with one class loader lookup and read with one
+ * stream. Each card keeps its own compressed PNG data, so a card is only decoded when it is needed.
+ * <p>
+ * The atlas is generated at build time from the card PNG files (see the main method and pom.xml). Layout:
+ * magic, version, count, then count times (name, length), then the PNG data of the cards one after the other.
+ */
+public class CardAtlas {
+
+    static final String RESOURCE = "cards/atlas.bin";
+
+    private static final int MAGIC = 0x53455441; // "SETA"
+    private static final int VERSION = 1;
+
+    private final byte[] data;
+    private final Map<String, int[]> index; // name -> {offset, length}
+
+    private CardAtlas(byte[] data, Map<String, int[]> index) {
+        this.data = data;
+        this.index = index;
+    }
+
+    /**
+     * Loads the atlas from the resources.
+     *
+     * @return - the atlas, or null if there is no atlas resource.
+     * @throws IOException - if the atlas resource cannot be read or is corrupt.
+     */
+    static CardAtlas load() throws IOException {
+        InputStream resource = CardAtlas.class.getClassLoader().getResourceAsStream(RESOURCE);
+        if (resource == null)
+            return null;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(resource))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION)
+                throw new IOException("unsupported card atlas format");
+            int count = in.readInt();
+            Map<String, int[]> index = new HashMap<>(count * 2);
+            int offset = 0;
+            for (int i = 0; i < count; i++) {
+                String name = in.readUTF();
+                int length = in.readInt();
+                index.put(name, new int[]{offset, length});
+                offset += length;
+            }
+            byte[] data = new byte[offset];
+            in.readFully(data);
+            return new CardAtlas(data, index);
+        }
+    }
+
+    /**
+     * @param name - the card file name (without the .png extension).
+     * @return - a stream of the card PNG data, or null if the card is not in the atlas.
+     */
+    InputStream open(String name) {
+        int[] entry = index.get(name);
+        return entry == null ? null : new ByteArrayInputStream(data, entry[0], entry[1]);
+    }
+
+    /**
+     * Generates the atlas from a directory of card PNG files (run at build time).
+     *
+     * @param args - the cards directory and the output atlas file.
+     * @throws IOException - if reading the cards or writing the atlas fails.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2)
+            throw new IllegalArgumentException("usage: CardAtlas <cards directory> <atlas file>");
+        List<Path> cards;
+        try (Stream<Path> files = Files.list(Paths.get(args[0]))) {
+            cards = files.filter(f -> f.getFileName().toString().endsWith(".png")).sorted().collect(Collectors.toList());
+        }
+        Path atlas = Paths.get(args[1]);
+        if (atlas.getParent() != null)
+            Files.createDirectories(atlas.getParent());
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(atlas)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(cards.size());
+            for (Path card : cards) {
+                String name = card.getFileName().toString();
+                out.writeUTF(name.substring(0, name.length() - ".png".length()));
+                out.writeInt((int) Files.size(card));
+            }
+            for (Path card : cards)
+                Files.copy(card, out);
+        }
+        System.out.println("packed " + cards.size() + " card images into " + atlas);
+    }
+}
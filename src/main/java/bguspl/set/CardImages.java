@@ -0,0 +1,165 @@
+package bguspl.set;
+
+import javax.imageio.ImageIO;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.logging.Logger;
+
+/**
+ * Provides the card images for the Swing user interface, scaled to the cell size.
+ * The images are made on first use and kept in a bounded least-recently-used cache. They are decoded from the card
+ * atlas (or from the card PNG files if there is no atlas or the card is not in it), or drawn by the CardRenderer for
+ * decks that have no card images. A card that cannot be loaded at all is shown as a blank cell. Not thread safe: used
+ * on the Event Dispatch Thread only.
+ */
+class CardImages {
+
+    private static final String EMPTY_CARD = "empty_card";
+
+    private final Logger logger;
+    private final Config config;
+
+    /**
+     * The card atlas (null if there is none, then the card PNG files are used).
+     */
+    private final CardAtlas atlas;
+
+    /**
+     * Draws the cards (null if the card images are used).
+     */
+    private final CardRenderer renderer;
+
+    private final Image emptyCard;
+
+    /**
+     * The scaled card images, in least-recently-used order.
+     */
+    private final Map<Integer, Image> cache;
+
+    CardImages(Logger logger, Config config) {
+        this.logger = logger;
+        this.config = config;
+        boolean procedural = config.cardRendering.equals("procedural")
+                || config.cardRendering.equals("auto") && !hasCardImages(config);
+        CardAtlas atlas = null;
+        if (!procedural) try {
+            atlas = CardAtlas.load();
+            if (atlas == null)
+                logger.info("no card atlas found, loading the card files one by one.");
+        } catch (IOException e) {
+            logger.severe("cannot read the card atlas: " + e.getMessage() + ", loading the card files instead.");
+        }
+        this.atlas = atlas;
+        this.renderer = procedural ? new CardRenderer(config) : null;
+        if (procedural)
+            logger.info("drawing the cards (" + config.featureCount + " features of size " + config.featureSize + ").");
+
+        int capacity = config.cardCacheSize;
+        cache = new LinkedHashMap<Integer, Image>(capacity * 2, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, Image> eldest) {
+                return size() > capacity;
+            }
+        };
+        emptyCard = load(EMPTY_CARD);
+    }
+
+    /**
+     * @return - true iff there are card images for the configured deck (the images are named by the card features
+     * as digits, so there can only be images for a feature size below 10).
+     */
+    private static boolean hasCardImages(Config config) {
+        return config.featureSize < 10 && CardImages.class.getClassLoader().getResource("cards/"
+                + UserInterfaceSwing.intInBaseToPaddedString(config.deckSize - 1, config.featureCount, config.featureSize) + ".png") != null;
+    }
+
+    /**
+     * @return - how the cards are made (for logging).
+     */
+    String source() {
+        return renderer != null ? "drawn" : atlas != null ? "card atlas" : "card files";
+    }
+
+    Image emptyCard() {
+        return emptyCard;
+    }
+
+    /**
+     * @param card - the card id.
+     * @return - the card image, scaled to the cell size.
+     */
+    Image card(int card) {
+        Image image = cache.get(card);
+        if (image == null) {
+            image = renderer != null ? render(card)
+                    : load(UserInterfaceSwing.intInBaseToPaddedString(card, config.featureCount, config.featureSize));
+            cache.put(card, image);
+        }
+        return image;
+    }
+
+    /**
+     * Loads a card image from the atlas, or from its PNG file if it is not in the atlas.
+     *
+     * @return - the image scaled to the cell size, or a blank cell if the card cannot be loaded (the painting goes on).
+     */
+    private Image load(String name) {
+        if (atlas != null) {
+            Image image = read(name, atlas.open(name));
+            if (image != null)
+                return image;
+            logger.warning("card " + name + " is not in the card atlas, loading its file.");
+        }
+        Image image = read(name, getClass().getClassLoader().getResourceAsStream("cards/" + name + ".png"));
+        if (image != null)
+            return image;
+        logger.severe("cannot load the card image cards/" + name + ".png, showing a blank card.");
+        return createCellImage();
+    }
+
+    /**
+     * @param in - the PNG data of the card (null if there is none), closed here.
+     * @return - the image scaled to the cell size, or null if it cannot be read.
+     */
+    private Image read(String name, InputStream in) {
+        if (in == null)
+            return null;
+        try (InputStream png = in) {
+            BufferedImage image = ImageIO.read(png);
+            return image != null ? toCellImage(image) : null;
+        } catch (IOException e) {
+            logger.severe("cannot read the card image " + name + ": " + e);
+            return null;
+        }
+    }
+
+    private Image render(int card) {
+        BufferedImage cellImage = createCellImage();
+        Graphics2D g = cellImage.createGraphics();
+        renderer.paint(g, card, config.cellWidth, config.cellHeight);
+        g.dispose();
+        return cellImage;
+    }
+
+    private BufferedImage createCellImage() {
+        return GraphicsEnvironment.getLocalGraphicsEnvironment().getDefaultScreenDevice()
+                .getDefaultConfiguration().createCompatibleImage(config.cellWidth, config.cellHeight, Transparency.TRANSLUCENT);
+    }
+
+    /**
+     * Scales an image to the cell size, once, into an image compatible with the screen (so Java2D can keep it in
+     * video memory and every draw is a straight copy).
+     */
+    private Image toCellImage(Image image) {
+        BufferedImage cellImage = createCellImage();
+        Graphics2D g = cellImage.createGraphics();
+        g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        g.drawImage(image, 0, 0, config.cellWidth, config.cellHeight, null);
+        g.dispose();
+        return cellImage;
+    }
+}
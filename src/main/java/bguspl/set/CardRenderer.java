@@ -0,0 +1,174 @@
+package bguspl.set;
+
+import java.awt.*;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Ellipse2D;
+import java.awt.geom.Path2D;
+import java.awt.geom.Rectangle2D;
+import java.awt.geom.RoundRectangle2D;
+
+/**
+ * Draws a card from its features, for decks that have no card images (any feature size and feature count).
+ * The features are shown as: color, number of shapes, shape, fill, background tint, border width, and any further
+ * feature as a number in the bottom row of the card.
+ */
+class CardRenderer {
+
+    private static final int COLOR = 0;
+    private static final int COUNT = 1;
+    private static final int SHAPE = 2;
+    private static final int FILL = 3;
+    private static final int BACKGROUND = 4;
+    private static final int BORDER = 5;
+    private static final int FIRST_EXTRA = 6;
+
+    private final Config config;
+
+    CardRenderer(Config config) {
+        this.config = config;
+    }
+
+    /**
+     * @return - the features of the card (as in Util.cardToFeatures).
+     */
+    private int[] features(int card) {
+        int[] features = new int[config.featureCount];
+        for (int i = config.featureCount - 1; i >= 0; --i) {
+            features[i] = card % config.featureSize;
+            card /= config.featureSize;
+        }
+        return features;
+    }
+
+    private int feature(int[] features, int feature) {
+        return feature < features.length ? features[feature] : 0;
+    }
+
+    private Color hue(int value, float saturation, float brightness) {
+        return Color.getHSBColor((float) value / config.featureSize, saturation, brightness);
+    }
+
+    /**
+     * Draws a card.
+     *
+     * @param g      - the graphics to draw on.
+     * @param card   - the card id.
+     * @param width  - the width of the card.
+     * @param height - the height of the card.
+     */
+    void paint(Graphics2D g, int card, int width, int height) {
+        int[] features = features(card);
+        g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+
+        // the card itself
+        int margin = Math.max(2, Math.min(width, height) / 20);
+        RoundRectangle2D face = new RoundRectangle2D.Float(margin, margin, width - 2 * margin, height - 2 * margin, 4 * margin, 4 * margin);
+        g.setColor(features.length > BACKGROUND ? hue(features[BACKGROUND], 0.08f, 1f) : Color.WHITE);
+        g.fill(face);
+        g.setColor(Color.DARK_GRAY);
+        g.setStroke(new BasicStroke(1 + feature(features, BORDER)));
+        g.draw(face);
+
+        // the shapes
+        Color color = hue(feature(features, COLOR), 0.85f, 0.75f);
+        int count = feature(features, COUNT) + 1;
+        int columns = (int) Math.ceil(Math.sqrt(count * 2.0)); // shapes are taller than wide
+        int rows = (count + columns - 1) / columns;
+        int bottom = features.length > FIRST_EXTRA ? height / 5 : 0; // room for the extra features
+        double cellWidth = (width - 4.0 * margin) / columns;
+        double cellHeight = (height - 4.0 * margin - bottom) / rows;
+        double shapeWidth = Math.min(cellWidth * 0.7, cellHeight * 0.45);
+        double shapeHeight = shapeWidth / 0.45 * 0.8;
+        for (int i = 0; i < count; i++) {
+            int row = i / columns;
+            int inRow = Math.min(columns, count - row * columns);
+            double x = (width - inRow * cellWidth) / 2 + (i % columns + 0.5) * cellWidth;
+            double y = 2 * margin + (row + 0.5) * cellHeight;
+            Shape shape = AffineTransform.getTranslateInstance(x - shapeWidth / 2, y - shapeHeight / 2)
+                    .createTransformedShape(shape(feature(features, SHAPE), shapeWidth, shapeHeight));
+            fill(g, shape, color, feature(features, FILL));
+            g.setColor(color);
+            g.setStroke(new BasicStroke(Math.max(1.5f, (float) shapeWidth / 20)));
+            g.draw(shape);
+        }
+
+        // any further features, as numbers
+        if (features.length > FIRST_EXTRA) {
+            g.setColor(Color.DARK_GRAY);
+            g.setFont(new Font("SansSerif", Font.BOLD, Math.max(8, bottom * 2 / 3)));
+            FontMetrics metrics = g.getFontMetrics();
+            String text = extraFeatures(features);
+            g.drawString(text, (width - metrics.stringWidth(text)) / 2, height - 2 * margin - metrics.getDescent());
+        }
+    }
+
+    /**
+     * @return - the features after the drawn ones, as decimal numbers separated by spaces (so any feature size fits).
+     */
+    static String extraFeatures(int[] features) {
+        StringBuilder text = new StringBuilder();
+        for (int i = FIRST_EXTRA; i < features.length; i++)
+            text.append(i == FIRST_EXTRA ? "" : " ").append(features[i]);
+        return text.toString();
+    }
+
+    /**
+     * @return - the shape for a shape feature value: oval, diamond, rectangle, triangle, then polygons with five sides
+     * and more (never four, so no polygon repeats the diamond).
+     */
+    private Shape shape(int value, double width, double height) {
+        switch (value) {
+            case 0:
+                return new Ellipse2D.Double(0, 0, width, height);
+            case 1:
+                return polygon(4, width, height, 0);
+            case 2:
+                return new Rectangle2D.Double(0, 0, width, height);
+            case 3:
+                return polygon(3, width, height, -Math.PI / 2);
+            default:
+                return polygon(value + 1, width, height, -Math.PI / 2);
+        }
+    }
+
+    private Shape polygon(int sides, double width, double height, double rotation) {
+        Path2D.Double polygon = new Path2D.Double();
+        for (int i = 0; i < sides; i++) {
+            double angle = rotation + 2 * Math.PI * i / sides;
+            double x = width / 2 + Math.cos(angle) * width / 2;
+            double y = height / 2 + Math.sin(angle) * height / 2;
+            if (i == 0) polygon.moveTo(x, y);
+            else polygon.lineTo(x, y);
+        }
+        polygon.closePath();
+        return polygon;
+    }
+
+    /**
+     * Fills a shape according to a fill feature value: solid, striped, empty, then more and more transparent.
+     */
+    private void fill(Graphics2D g, Shape shape, Color color, int value) {
+        switch (value) {
+            case 0:
+                g.setColor(color);
+                g.fill(shape);
+                break;
+            case 1:
+                Shape clip = g.getClip();
+                g.clip(shape);
+                g.setColor(color);
+                g.setStroke(new BasicStroke(1));
+                Rectangle bounds = shape.getBounds();
+                for (int y = bounds.y; y < bounds.y + bounds.height; y += 4)
+                    g.drawLine(bounds.x, y, bounds.x + bounds.width, y);
+                g.setClip(clip);
+                break;
+            case 2:
+                break;
+            default:
+                int alpha = 255 * (config.featureSize - value) / (config.featureSize - 2);
+                g.setColor(new Color(color.getRed(), color.getGreen(), color.getBlue(), Math.max(30, Math.min(200, alpha))));
+                g.fill(shape);
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package bguspl.set;
+
+/**
+ * The latency histograms of the stages a key press goes through, from the keyboard to the verdict on the set it
+ * completes. One per game, shared by the dealer and the players. Can be read live, and is logged when the game ends.
+ */
+public class ClaimLatencies {
+
+    /**
+     * The stages of the claim pipeline.
+     */
+    public enum Stage {
+        /** From the key press to the player thread taking it from its input buffer. */
+        KEY_TO_DEQUEUE("key to dequeue"),
+        /** Placing the token on the table. */
+        PLACE_TOKEN("place token"),
+        /** The player checking the cards it marked before claiming them. */
+        CLAIM_CHECK("claim check"),
+        /** Waiting for the dealer's claim semaphore. */
+        SEMAPHORE_WAIT("semaphore wait"),
+        /** The dealer side check of the claimed set. */
+        VERIFY("verify"),
+        /** From waking the dealer up to the dealer done replacing the cards of a legal set. */
+        SET_HANDLING("set handling"),
+        /** The dealer removing the cards of a legal set and placing new ones. */
+        REPLACE_CARDS("replace cards"),
+        /** From the key press completing a set to the point or penalty. */
+        KEY_TO_VERDICT("key to verdict");
+
+        private final String label;
+
+        Stage(String label) {
+            this.label = label;
+        }
+    }
+
+    private final LatencyHistogram[] histograms = new LatencyHistogram[Stage.values().length];
+
+    public ClaimLatencies() {
+        for (int i = 0; i < histograms.length; i++)
+            histograms[i] = new LatencyHistogram();
+    }
+
+    /**
+     * Records the duration of a stage.
+     *
+     * @param stage - the stage.
+     * @param nanos - the duration in nanoseconds.
+     */
+    public void record(Stage stage, long nanos) {
+        histograms[stage.ordinal()].record(nanos);
+    }
+
+    /**
+     * @return - the histogram of a stage (live).
+     */
+    public LatencyHistogram histogram(Stage stage) {
+        return histograms[stage.ordinal()];
+    }
+
+    /**
+     * @return - a line per stage with its count and percentiles (for the log).
+     */
+    public String summary() {
+        StringBuilder sb = new StringBuilder("claim pipeline latencies:");
+        for (Stage stage : Stage.values())
+            sb.append(System.lineSeparator()).append(String.format("  %-15s %s", stage.label, histogram(stage)));
+        return sb.toString();
+    }
+}
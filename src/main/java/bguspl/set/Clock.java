@@ -0,0 +1,71 @@
+package bguspl.set;
+
+import java.util.function.BooleanSupplier;
+
+/**
+ * The source of time of a game. The game asks the clock for the time and sleeps on it, so the same game logic can run
+ * on the wall clock (SystemClock), on a simulated clock that jumps forward (VirtualClock) or on a simulated clock that
+ * also runs the game threads one at a time (LockstepClock).
+ */
+public interface Clock {
+
+    /**
+     * @return - the current time in milliseconds.
+     */
+    long millis();
+
+    /**
+     * Sleeps for a number of milliseconds of this clock.
+     *
+     * @param millis - the time to sleep.
+     * @throws InterruptedException - if the thread is interrupted while sleeping.
+     */
+    void sleep(long millis) throws InterruptedException;
+
+    /**
+     * @return - true iff the game threads run one at a time (LockstepClock).
+     */
+    default boolean isLockstep() {
+        return false;
+    }
+
+    /**
+     * @return - true iff the clock is simulated and must know when the game threads wait (VirtualClock and
+     * LockstepClock): they must then wait with awaitUntil() instead of blocking on locks, queues or other threads.
+     */
+    default boolean isSimulated() {
+        return false;
+    }
+
+    /**
+     * Waits until a condition holds. Only supported by a simulated clock.
+     *
+     * @param condition - checked whenever the thread may get its turn.
+     * @throws InterruptedException - if the thread is interrupted while waiting.
+     */
+    default void awaitUntil(BooleanSupplier condition) throws InterruptedException {
+        throw new UnsupportedOperationException("only a simulated clock waits for conditions");
+    }
+
+    /**
+     * Interrupts a game thread. Game threads interrupt each other through the clock, so a lockstep clock knows at once
+     * that the thread is ready to run.
+     *
+     * @param thread - the thread to interrupt.
+     */
+    default void interrupt(Thread thread) {
+        thread.interrupt();
+    }
+
+    /**
+     * Called by GameThreads just before a game thread is started (a simulated clock holds the time back while the game
+     * threads run).
+     *
+     * @param name   - the name of the thread.
+     * @param target - the code the thread runs.
+     * @return - the code the thread should run instead (the same code, unless the clock schedules the threads).
+     */
+    default Runnable track(String name, Runnable target) {
+        return target;
+    }
+}
@@ -1,5 +1,7 @@
 package bguspl.set;
 
+import bguspl.set.ex.ComputerSkill;
+
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.file.Files;
@@ -51,11 +53,42 @@ public class Config {
      */
     public final int players;
 
+    /**
+     * The skill level of the computer players
+     */
+    public final ComputerSkill computerSkill;
+
+    /**
+     * The maximal number of key presses waiting to be handled for each player
+     */
+    public final int inputBufferCapacity;
+
+    /**
+     * The number of key presses per second allowed for each player (0 for no limit)
+     */
+    public final double inputRatePerSecond;
+
+    /**
+     * The number of key presses a player is allowed to make in a burst (when rate limited)
+     */
+    public final int inputBurst;
+
+    /**
+     * Whether to run the players and the computer players on virtual threads (needs Java 21 or later)
+     */
+    public final boolean virtualThreads;
+
     /**
      * Whether to print out hints to the console or not
      */
     public final boolean hints;
 
+    /**
+     * The seed of all the random choices of the game (the deck shuffles, the computer players and the random spins),
+     * so a game can be reproduced
+     */
+    public final long seed;
+
     /**
      * The number of milliseconds until the dealer reshuffles the deck (0 show timer since last action, -1 show nothing)
      */
@@ -132,6 +165,52 @@ public class Config {
      */
     public final int fontSize;
 
+    /**
+     * How the cards are shown: "images" (the card image files), "procedural" (drawn from the card features) or "auto"
+     * (images if there are images for the configured deck, drawn otherwise)
+     */
+    public final String cardRendering;
+
+    /**
+     * The maximal number of scaled card images kept in memory by the user interface
+     */
+    public final int cardCacheSize;
+
+    /**
+     * The user interface: "swing" (a window) or "headless" (no display, only counts and keeps the game state)
+     */
+    public final String userInterface;
+
+    /**
+     * The file of the binary game event journal (empty for no journal)
+     */
+    public final String journalFile;
+
+    /**
+     * The number of milliseconds between snapshots of the game state (0 or less for no snapshots)
+     */
+    public final long snapshotMillis;
+
+    /**
+     * The file of the game state snapshot
+     */
+    public final String snapshotFile;
+
+    /**
+     * Whether to resume the game from the snapshot file (if there is one) instead of starting a new game
+     */
+    public final boolean restore;
+
+    /**
+     * The number of milliseconds between dumps of the game metrics to the log (0 or less for no dumps)
+     */
+    public final long metricsLogMillis;
+
+    /**
+     * The number of milliseconds the game threads have to stop in when the game ends
+     */
+    public final long shutdownTimeoutMillis;
+
     /**
      * The scancodes of the keyboard input data for each player
      * Notes:
@@ -183,7 +262,7 @@ public class Config {
     public Config(Logger logger, Properties properties) {
 
         // logger settings
-        Level logLevel = Level.parse(properties.getProperty("LogLevel", "ALL"));
+        Level logLevel = Level.parse(properties.getProperty("LogLevel", "INFO"));
         String logFormat = properties.getProperty("LogFormat", "[%1$tT.%1$tL] [%2$-7s] %3$s%n");
         Main.setLoggerLevelAndFormat(logger, logLevel, logFormat);
 
@@ -202,8 +281,23 @@ public class Config {
         humanPlayers = Integer.parseInt(properties.getProperty("HumanPlayers", "2"));
         computerPlayers = Integer.parseInt(properties.getProperty("ComputerPlayers", "0"));
         players = humanPlayers + computerPlayers;
+        String skill = properties.getProperty("ComputerSkill", "RANDOM").trim().toUpperCase();
+        ComputerSkill parsedSkill = ComputerSkill.RANDOM;
+        try {
+            parsedSkill = ComputerSkill.valueOf(skill);
+        } catch (IllegalArgumentException e) {
+            logger.severe("warning: unknown computer skill " + skill + ", using " + parsedSkill + ".");
+        }
+        computerSkill = parsedSkill;
 
+        inputBufferCapacity = Integer.parseInt(properties.getProperty("InputBufferCapacity", Integer.toString(featureSize)));
+        inputRatePerSecond = Double.parseDouble(properties.getProperty("InputRatePerSecond", "0"));
+        inputBurst = Integer.parseInt(properties.getProperty("InputBurst", Integer.toString(inputBufferCapacity)));
+        virtualThreads = Boolean.parseBoolean(properties.getProperty("VirtualThreads", "False"));
         hints = Boolean.parseBoolean(properties.getProperty("Hints", "False"));
+        String seedString = properties.getProperty("Seed", "").trim();
+        seed = seedString.isEmpty() ? System.nanoTime() : Long.parseLong(seedString);
+        logger.info("random seed: " + seed + (seedString.isEmpty() ? " (set Seed=" + seed + " to play this game again)" : ""));
         turnTimeoutMillis = (long) (Double.parseDouble(properties.getProperty("TurnTimeoutSeconds", "60")) * 1000.0);
         turnTimeoutWarningMillis = (long) (Double.parseDouble(properties.getProperty("TurnTimeoutWarningSeconds", "60")) * 1000.0);
         pointFreezeMillis = (long) (Double.parseDouble(properties.getProperty("PointFreezeSeconds", "1")) * 1000.0);
@@ -224,6 +318,25 @@ public class Config {
         playerCellWidth = Integer.parseInt(properties.getProperty("PlayerCellWidth", "300"));
         playerCellHeight = Integer.parseInt(properties.getProperty("PlayerCellHeight", "40"));
         fontSize = Integer.parseInt(properties.getProperty("FontSize", "40"));
+        String rendering = properties.getProperty("CardRendering", "Auto").trim().toLowerCase();
+        if (!rendering.equals("auto") && !rendering.equals("images") && !rendering.equals("procedural")) {
+            logger.severe("warning: unknown card rendering " + rendering + ", using auto.");
+            rendering = "auto";
+        }
+        cardRendering = rendering;
+        cardCacheSize = Integer.parseInt(properties.getProperty("CardCacheSize", Integer.toString(2 * tableSize)));
+        String userInterface = properties.getProperty("UserInterface", "Swing").trim().toLowerCase();
+        if (!userInterface.equals("swing") && !userInterface.equals("headless")) {
+            logger.severe("warning: unknown user interface " + userInterface + ", using swing.");
+            userInterface = "swing";
+        }
+        this.userInterface = userInterface;
+        journalFile = properties.getProperty("JournalFile", "").trim();
+        snapshotMillis = (long) (Double.parseDouble(properties.getProperty("SnapshotSeconds", "0")) * 1000.0);
+        snapshotFile = properties.getProperty("SnapshotFile", "snapshot.bin").trim();
+        restore = Boolean.parseBoolean(properties.getProperty("Restore", "False"));
+        metricsLogMillis = (long) (Double.parseDouble(properties.getProperty("MetricsLogSeconds", "0")) * 1000.0);
+        shutdownTimeoutMillis = (long) (Double.parseDouble(properties.getProperty("ShutdownTimeoutSeconds", "5")) * 1000.0);
 
         // keyboard input data
         playerKeys = new int[players][rows * columns];
@@ -1,18 +1,62 @@
 package bguspl.set;
 
+import java.nio.file.Paths;
 import java.util.logging.Logger;
 
-public class Env {
+/**
+ * The objects a game is made of besides its entities. The one who creates an Env closes it once the game is over (or
+ * was never started), as it may hold the game's journal file open.
+ */
+public class Env implements AutoCloseable {
 
     public final Logger logger;
     public final Config config;
     public final UserInterface ui;
     public final Util util;
+    public final GameThreads threads;
+    public final ClaimLatencies latencies;
+    public final GameMetrics metrics;
+    public final Clock clock;
+    public final GameRecording recording; // null if the game is not recorded
+    public final GameJournal journal; // null if there is no journal
+    public final String snapshotFile; // the file of the game's snapshots (empty for none)
 
     public Env(Logger logger, Config config, UserInterface ui, Util util) {
+        this(logger, config, ui, util, new SystemClock());
+    }
+
+    public Env(Logger logger, Config config, UserInterface ui, Util util, Clock clock) {
+        this(logger, config, ui, util, clock, null);
+    }
+
+    public Env(Logger logger, Config config, UserInterface ui, Util util, Clock clock, GameRecording recording) {
+        this(logger, config, ui, util, clock, recording, config.journalFile, config.snapshotFile);
+    }
+
+    /**
+     * @param journalFile  - the file of the game's journal (empty for none), instead of the one of the configuration.
+     * @param snapshotFile - the file of the game's snapshots (empty for none), instead of the one of the configuration.
+     */
+    public Env(Logger logger, Config config, UserInterface ui, Util util, Clock clock, GameRecording recording,
+               String journalFile, String snapshotFile) {
         this.logger = logger;
         this.config = config;
         this.ui = ui;
         this.util = util;
+        this.threads = new GameThreads(logger, config.virtualThreads, clock);
+        this.latencies = new ClaimLatencies();
+        this.metrics = new GameMetrics();
+        this.clock = clock;
+        this.recording = recording;
+        this.snapshotFile = snapshotFile;
+        this.journal = journalFile.isEmpty() ? null : GameJournal.open(logger, Paths.get(journalFile), config.seed);
+    }
+
+    /**
+     * Writes out and closes the game's journal.
+     */
+    @Override
+    public void close() {
+        if (journal != null) journal.close();
     }
 }
@@ -0,0 +1,231 @@
+package bguspl.set;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+import java.util.Arrays;
+
+/**
+ * The Java Flight Recorder events of the game, recorded through GameEvents. The only class that uses jdk.jfr: it is
+ * loaded by name when the game starts, and left out of the Java 8 builds (the java8 profile of the pom).
+ * <p>
+ * An event is only begun when it is enabled in a running recording, and its fields (the strings of slots and cards)
+ * are only filled in when it is actually committed.
+ */
+class FlightEvents implements GameEvents.Recorder {
+
+    private static final String CATEGORY = "Set Game";
+
+    @Name("bguspl.set.Deal")
+    @Label("Deal")
+    @Category(CATEGORY)
+    @Description("The dealer placing cards from the deck on the empty slots of the table")
+    @StackTrace(false)
+    static class Deal extends Event {
+        @Label("Cards Dealt")
+        int cardsDealt;
+
+        @Label("Deck Left")
+        int deckLeft;
+
+        @Label("Placements")
+        @Description("The slot=card pairs dealt")
+        String placements;
+    }
+
+    @Name("bguspl.set.Reshuffle")
+    @Label("Reshuffle")
+    @Category(CATEGORY)
+    @Description("The dealer returning all the cards on the table to the deck")
+    @StackTrace(false)
+    static class Reshuffle extends Event {
+        @Label("Cards Returned")
+        int cardsReturned;
+
+        @Label("Deck Size")
+        int deckSize;
+    }
+
+    @Name("bguspl.set.ClaimVerification")
+    @Label("Claim Verification")
+    @Category(CATEGORY)
+    @Description("The check of a set claimed by a player, first on the player thread and then by the dealer")
+    @StackTrace(false)
+    static class ClaimVerification extends Event {
+        @Label("Player")
+        int player;
+
+        @Label("Slots")
+        String slots;
+
+        @Label("Cards")
+        String cards;
+
+        @Label("Claimed Version")
+        @Description("The table version the player checked the set at")
+        int claimedVersion;
+
+        @Label("Table Version")
+        int tableVersion;
+
+        @Label("Verdict")
+        @Description("On the player thread: sent (to the dealer) or illegal. By the dealer: legal, illegal or stale (a card of the claim was gone)")
+        String verdict;
+    }
+
+    @Name("bguspl.set.Freeze")
+    @Label("Player Freeze")
+    @Category(CATEGORY)
+    @Description("A player frozen after a point or a penalty")
+    @StackTrace(false)
+    static class Freeze extends Event {
+        @Label("Player")
+        int player;
+
+        @Label("Reason")
+        @Description("point or penalty")
+        String reason;
+
+        @Label("Freeze Time")
+        @Timespan(Timespan.MILLISECONDS)
+        long freezeMillis;
+    }
+
+    @Name("bguspl.set.Hints")
+    @Label("Hints")
+    @Category(CATEGORY)
+    @Description("Finding and printing the sets on the table")
+    @StackTrace(false)
+    static class Hints extends Event {
+        @Label("Sets Found")
+        int setsFound;
+    }
+
+    @Name("bguspl.set.LockWait")
+    @Label("Lock Wait")
+    @Category(CATEGORY)
+    @Description("A game thread waiting for the dealer's player lock or claim semaphore")
+    static class LockWait extends Event {
+        @Label("Lock")
+        @Description("playerLock or sem")
+        String lock;
+
+        @Label("Player")
+        @Description("The player who waited (-1 for the dealer)")
+        int player;
+    }
+
+    private static <T extends Event> T begin(T event) {
+        if (!event.isEnabled())
+            return null;
+        event.begin();
+        return event;
+    }
+
+    @Override
+    public Object beginDeal() {
+        return begin(new Deal());
+    }
+
+    @Override
+    public void commitDeal(Object begun, int cardsDealt, int deckLeft, String placements) {
+        Deal event = (Deal) begun;
+        event.end();
+        if (!event.shouldCommit())
+            return;
+        event.cardsDealt = cardsDealt;
+        event.deckLeft = deckLeft;
+        event.placements = placements;
+        event.commit();
+    }
+
+    @Override
+    public Object beginReshuffle() {
+        return begin(new Reshuffle());
+    }
+
+    @Override
+    public void commitReshuffle(Object begun, int cardsReturned, int deckSize) {
+        Reshuffle event = (Reshuffle) begun;
+        event.end();
+        if (!event.shouldCommit())
+            return;
+        event.cardsReturned = cardsReturned;
+        event.deckSize = deckSize;
+        event.commit();
+    }
+
+    @Override
+    public Object beginClaimVerification() {
+        return begin(new ClaimVerification());
+    }
+
+    @Override
+    public void commitClaimVerification(Object begun, int player, int[] slots, int[] cards, int claimedVersion,
+                                        int tableVersion, String verdict) {
+        ClaimVerification event = (ClaimVerification) begun;
+        event.end();
+        if (!event.shouldCommit())
+            return;
+        event.player = player;
+        event.slots = Arrays.toString(slots);
+        event.cards = cards == null ? "" : Arrays.toString(cards);
+        event.claimedVersion = claimedVersion;
+        event.tableVersion = tableVersion;
+        event.verdict = verdict;
+        event.commit();
+    }
+
+    @Override
+    public Object beginFreeze() {
+        return begin(new Freeze());
+    }
+
+    @Override
+    public void commitFreeze(Object begun, int player, String reason, long freezeMillis) {
+        Freeze event = (Freeze) begun;
+        event.end();
+        if (!event.shouldCommit())
+            return;
+        event.player = player;
+        event.reason = reason;
+        event.freezeMillis = freezeMillis;
+        event.commit();
+    }
+
+    @Override
+    public Object beginHints() {
+        return begin(new Hints());
+    }
+
+    @Override
+    public void commitHints(Object begun, int setsFound) {
+        Hints event = (Hints) begun;
+        event.end();
+        if (!event.shouldCommit())
+            return;
+        event.setsFound = setsFound;
+        event.commit();
+    }
+
+    @Override
+    public Object beginLockWait() {
+        return begin(new LockWait());
+    }
+
+    @Override
+    public void commitLockWait(Object begun, String lock, int player) {
+        LockWait event = (LockWait) begun;
+        event.end();
+        if (!event.shouldCommit())
+            return;
+        event.lock = lock;
+        event.player = player;
+        event.commit();
+    }
+}
@@ -0,0 +1,208 @@
+package bguspl.set;
+
+/**
+ * The Java Flight Recorder events of the game, so a recording tells a slow deal from a slow set verification or a
+ * player stuck on a lock. They show up under "Set Game" in JDK Mission Control, and can be turned on by name, e.g.
+ * java -XX:StartFlightRecording:filename=game.jfr,settings=profile ...
+ * <p>
+ * JFR (jdk.jfr) is not part of every Java 8 JVM and the project targets Java 8, so the events themselves are in
+ * FlightEvents, loaded by name, and nothing is recorded when it cannot be loaded (as GameThreads does for virtual
+ * threads).
+ * <p>
+ * An event is begun before the work and committed after it: begin returns null when the event is not recorded (and
+ * the commit is then skipped), so an event costs next to nothing while there is no recording.
+ */
+public final class GameEvents {
+
+    /**
+     * Records the events (FlightEvents, or a recorder that records nothing).
+     */
+    interface Recorder {
+        Object beginDeal();
+
+        void commitDeal(Object event, int cardsDealt, int deckLeft, String placements);
+
+        Object beginReshuffle();
+
+        void commitReshuffle(Object event, int cardsReturned, int deckSize);
+
+        Object beginClaimVerification();
+
+        void commitClaimVerification(Object event, int player, int[] slots, int[] cards, int claimedVersion,
+                                     int tableVersion, String verdict);
+
+        Object beginFreeze();
+
+        void commitFreeze(Object event, int player, String reason, long freezeMillis);
+
+        Object beginHints();
+
+        void commitHints(Object event, int setsFound);
+
+        Object beginLockWait();
+
+        void commitLockWait(Object event, String lock, int player);
+    }
+
+    /**
+     * Records nothing, all the events begin as null.
+     */
+    private static class NoRecorder implements Recorder {
+        @Override
+        public Object beginDeal() {
+            return null;
+        }
+
+        @Override
+        public void commitDeal(Object event, int cardsDealt, int deckLeft, String placements) {
+        }
+
+        @Override
+        public Object beginReshuffle() {
+            return null;
+        }
+
+        @Override
+        public void commitReshuffle(Object event, int cardsReturned, int deckSize) {
+        }
+
+        @Override
+        public Object beginClaimVerification() {
+            return null;
+        }
+
+        @Override
+        public void commitClaimVerification(Object event, int player, int[] slots, int[] cards, int claimedVersion,
+                                            int tableVersion, String verdict) {
+        }
+
+        @Override
+        public Object beginFreeze() {
+            return null;
+        }
+
+        @Override
+        public void commitFreeze(Object event, int player, String reason, long freezeMillis) {
+        }
+
+        @Override
+        public Object beginHints() {
+            return null;
+        }
+
+        @Override
+        public void commitHints(Object event, int setsFound) {
+        }
+
+        @Override
+        public Object beginLockWait() {
+            return null;
+        }
+
+        @Override
+        public void commitLockWait(Object event, String lock, int player) {
+        }
+    }
+
+    private static final Recorder recorder = loadRecorder();
+
+    private GameEvents() {
+    }
+
+    private static Recorder loadRecorder() {
+        try {
+            return (Recorder) Class.forName("bguspl.set.FlightEvents").getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) { // no JFR in this JVM, or a build without it
+            return new NoRecorder();
+        }
+    }
+
+    /**
+     * @return - true iff the events can be recorded in this JVM.
+     */
+    public static boolean isAvailable() {
+        return !(recorder instanceof NoRecorder);
+    }
+
+    /**
+     * The dealer placing cards on the empty slots of the table.
+     */
+    public static Object beginDeal() {
+        return recorder.beginDeal();
+    }
+
+    /**
+     * @param placements - the slot=card pairs dealt.
+     */
+    public static void commitDeal(Object event, int cardsDealt, int deckLeft, String placements) {
+        if (event != null) recorder.commitDeal(event, cardsDealt, deckLeft, placements);
+    }
+
+    /**
+     * The dealer returning all the cards on the table to the deck.
+     */
+    public static Object beginReshuffle() {
+        return recorder.beginReshuffle();
+    }
+
+    public static void commitReshuffle(Object event, int cardsReturned, int deckSize) {
+        if (event != null) recorder.commitReshuffle(event, cardsReturned, deckSize);
+    }
+
+    /**
+     * The check of a claimed set: first by the player (an illegal set ends there), then by the dealer.
+     */
+    public static Object beginClaimVerification() {
+        return recorder.beginClaimVerification();
+    }
+
+    /**
+     * @param cards   - the cards claimed (null if a card of the claim was gone).
+     * @param verdict - sent (to the dealer) or illegal on the player thread; legal, illegal or stale on the dealer.
+     */
+    public static void commitClaimVerification(Object event, int player, int[] slots, int[] cards, int claimedVersion,
+                                               int tableVersion, String verdict) {
+        if (event != null)
+            recorder.commitClaimVerification(event, player, slots, cards, claimedVersion, tableVersion, verdict);
+    }
+
+    /**
+     * A player frozen after a point or a penalty.
+     */
+    public static Object beginFreeze() {
+        return recorder.beginFreeze();
+    }
+
+    /**
+     * @param reason - point or penalty.
+     */
+    public static void commitFreeze(Object event, int player, String reason, long freezeMillis) {
+        if (event != null) recorder.commitFreeze(event, player, reason, freezeMillis);
+    }
+
+    /**
+     * Finding and printing the sets on the table.
+     */
+    public static Object beginHints() {
+        return recorder.beginHints();
+    }
+
+    public static void commitHints(Object event, int setsFound) {
+        if (event != null) recorder.commitHints(event, setsFound);
+    }
+
+    /**
+     * A game thread waiting for the dealer's player lock or claim semaphore.
+     */
+    public static Object beginLockWait() {
+        return recorder.beginLockWait();
+    }
+
+    /**
+     * @param lock   - playerLock or sem.
+     * @param player - the player who waited (-1 for the dealer).
+     */
+    public static void commitLockWait(Object event, String lock, int player) {
+        if (event != null) recorder.commitLockWait(event, lock, player);
+    }
+}
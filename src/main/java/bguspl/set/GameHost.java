@@ -0,0 +1,272 @@
+package bguspl.set;
+
+import bguspl.set.ex.Dealer;
+import bguspl.set.ex.Player;
+import bguspl.set.ex.PlayerStats;
+import bguspl.set.ex.Table;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.logging.ConsoleHandler;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Runs many independent games in one JVM. Each game has its own Env (logger, clock, headless user interface and
+ * threads), Table, Dealer and players, so the games share nothing but the configuration.
+ * <p>
+ * The host does admission control, it does not share threads between the games: every game still runs on threads of
+ * its own (threadsPerGame of them). The dealer and player loops block (sleeping, waiting for key presses, waiting for
+ * the dealer) for as long as the game runs, so their threads cannot be taken from a bounded pool: once every pool
+ * thread is held by a blocked loop, the loops they wait for never get a thread and all the games hang. Instead, a
+ * game is only admitted when the thread budget has room for all of its threads, which caps the game threads running
+ * at once (see threads()). With virtual threads (VirtualThreads=True on Java 21 or later) the blocked loops do not
+ * hold a platform thread, the games are multiplexed on the JVM's carrier pool (one thread per core), and the budget
+ * can be much larger.
+ */
+public class GameHost {
+
+    private static final int DEFAULT_GAMES = 100;
+    private static final int DEFAULT_PLATFORM_THREAD_BUDGET = 2_000;
+    private static final int DEFAULT_VIRTUAL_THREAD_BUDGET = 1_000_000;
+
+    /**
+     * A game run by the host.
+     */
+    public class Game {
+
+        private final int id;
+        private final VirtualClock virtualClock;
+        private final UserInterfaceHeadless ui;
+        private final Dealer dealer;
+        private final Player[] players;
+        private final Env env;
+        private volatile long startNanos;
+        private volatile long endNanos;
+        private volatile Thread dealerThread;
+
+        private Game(int id) {
+            this.id = id;
+            Logger gameLogger = Logger.getLogger(logger.getName() + ".game" + id);
+            gameLogger.setParent(logger); // the host's handlers, the game's own name
+            virtualClock = useVirtualClock ? new VirtualClock() : null;
+            ui = new UserInterfaceHeadless(gameLogger, config);
+            env = new Env(gameLogger, config, ui, util, useVirtualClock ? virtualClock : new SystemClock(), null,
+                    GameJournal.fileOfGame(config.journalFile, id), // each game its own journal and snapshot
+                    GameJournal.fileOfGame(config.snapshotFile, id));
+            players = new Player[config.players];
+            Table table = new Table(env);
+            dealer = new Dealer(env, table, players);
+            for (int i = 0; i < players.length; i++)
+                players[i] = new Player(env, dealer, table, i, false);
+        }
+
+        private void begin() {
+            startNanos = System.nanoTime();
+            dealerThread = env.threads.start(() -> {
+                try {
+                    dealer.run();
+                } finally {
+                    endNanos = System.nanoTime();
+                    env.close();
+                    games.remove(this.id);
+                    admission.release();
+                }
+            }, "game " + id + " dealer");
+        }
+
+        public int id() {
+            return id;
+        }
+
+        /**
+         * Stops the game (the dealer announces the winners so far and stops the players).
+         */
+        public void stop() {
+            dealer.terminate();
+        }
+
+        public boolean isRunning() {
+            return dealerThread.isAlive();
+        }
+
+        /**
+         * Waits for the game to end.
+         *
+         * @throws InterruptedException - if interrupted while waiting.
+         */
+        public void await() throws InterruptedException {
+            dealerThread.join();
+        }
+
+        /**
+         * @return - the statistics of the game (as far as it got).
+         */
+        public Simulation.GameResult result() {
+            PlayerStats.Snapshot[] stats = new PlayerStats.Snapshot[players.length];
+            for (int i = 0; i < players.length; i++)
+                stats[i] = players[i].stats().snapshot();
+            long end = endNanos != 0 ? endNanos : System.nanoTime();
+            long gameMillis = virtualClock != null ? virtualClock.millis() : (end - startNanos) / 1_000_000;
+            return new Simulation.GameResult(gameMillis, end - startNanos, false, ui.winners(), stats);
+        }
+    }
+
+    private final Logger logger;
+    private final Config config;
+    private final Util util;
+    private final boolean useVirtualClock;
+
+    /**
+     * The number of games that fit in the thread budget, and a permit for each of them.
+     */
+    private final int capacity;
+    private final Semaphore admission;
+
+    private final Map<Integer, Game> games = new ConcurrentHashMap<>();
+    private final AtomicInteger nextId = new AtomicInteger();
+    private final LongAccumulator peakGames = new LongAccumulator(Math::max, 0);
+
+    /**
+     * @param logger          - the logger of the host (each game logs to a child logger).
+     * @param config          - the configuration of all the games.
+     * @param threadBudget    - the maximal number of game threads running at once (whole games are admitted).
+     * @param useVirtualClock - true to run the games on virtual clocks (as fast as possible), false for the wall clock.
+     */
+    public GameHost(Logger logger, Config config, int threadBudget, boolean useVirtualClock) {
+        this.logger = logger;
+        this.config = config;
+        this.util = new UtilImpl(config);
+        this.useVirtualClock = useVirtualClock;
+        this.capacity = Math.max(1, threadBudget / threadsPerGame(config));
+        this.admission = new Semaphore(capacity);
+    }
+
+    /**
+     * @return - the number of threads a game runs: the dealer, the players and a thread per computer player.
+     */
+    public static int threadsPerGame(Config config) {
+        return 1 + config.players + config.computerPlayers;
+    }
+
+    /**
+     * @return - the maximal number of games running at once.
+     */
+    public int capacity() {
+        return capacity;
+    }
+
+    /**
+     * Starts a new game, waiting for a running game to end if the host is full.
+     *
+     * @return - the game started.
+     * @throws InterruptedException - if interrupted while waiting.
+     */
+    public Game start() throws InterruptedException {
+        admission.acquire();
+        return launch();
+    }
+
+    /**
+     * Starts a new game if the host is not full.
+     *
+     * @return - the game started, or null if the host is full.
+     */
+    public Game tryStart() {
+        return admission.tryAcquire() ? launch() : null;
+    }
+
+    private Game launch() {
+        int id = nextId.incrementAndGet();
+        Game game = new Game(id);
+        games.put(id, game);
+        peakGames.accumulate(games.size());
+        game.begin();
+        logger.fine("game " + id + " started, " + games.size() + " games running.");
+        return game;
+    }
+
+    /**
+     * @return - the games running now.
+     */
+    public Collection<Game> running() {
+        return new ArrayList<>(games.values());
+    }
+
+    /**
+     * @return - the number of game threads running now, across all the games.
+     */
+    public int threads() {
+        int threads = 0;
+        for (Game game : games.values())
+            threads += game.env.threads.running();
+        return threads;
+    }
+
+    /**
+     * @return - the largest number of games that ran at once.
+     */
+    public long peakGames() {
+        return peakGames.get();
+    }
+
+    /**
+     * Stops all the running games and waits for them to end.
+     *
+     * @throws InterruptedException - if interrupted while waiting.
+     */
+    public void stopAll() throws InterruptedException {
+        Collection<Game> running = running();
+        running.forEach(Game::stop);
+        for (Game game : running)
+            game.await();
+    }
+
+    /**
+     * Runs many computer games at once and reports how many games each core carries.
+     * Usage: GameHost [games] [thread budget] [Virtual|System clock].
+     */
+    public static void main(String[] args) throws InterruptedException {
+        Logger logger = Logger.getLogger("SetGameHost");
+        logger.setUseParentHandlers(false);
+        ConsoleHandler handler = new ConsoleHandler();
+        handler.setLevel(Level.SEVERE);
+        logger.addHandler(handler);
+        Config config = new Config(logger, Simulation.simulationProperties(logger));
+        boolean virtualThreads = new GameThreads(logger, config.virtualThreads).isVirtual();
+
+        int games = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_GAMES;
+        int threadBudget = args.length > 1 ? Integer.parseInt(args[1])
+                : virtualThreads ? DEFAULT_VIRTUAL_THREAD_BUDGET : DEFAULT_PLATFORM_THREAD_BUDGET;
+        boolean useVirtualClock = args.length <= 2 || !args[2].equalsIgnoreCase("system");
+        int cores = Runtime.getRuntime().availableProcessors();
+
+        GameHost host = new GameHost(logger, config, threadBudget, useVirtualClock);
+        System.out.println("hosting " + games + " games of " + config.players + " computer players on " + cores
+                + " cores, " + (virtualThreads ? "virtual" : "platform") + " threads, "
+                + (useVirtualClock ? "virtual" : "wall") + " clock, up to " + host.capacity() + " games at once");
+        long start = System.nanoTime();
+        List<Game> started = new ArrayList<>();
+        for (int i = 0; i < games; i++)
+            started.add(host.start());
+        long sets = 0;
+        for (Game game : started) {
+            game.await();
+            sets += game.result().sets();
+        }
+        double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+
+        System.out.println(String.format("%d games in %.2fs: %.1f games/s, %.1f sets per game", games, seconds,
+                games / seconds, (double) sets / games));
+        System.out.println(String.format("peak %d games at once: %.1f concurrent games per core, %.1f games/s per core,"
+                        + " peak %d platform threads", host.peakGames(), (double) host.peakGames() / cores,
+                games / seconds / cores, ManagementFactory.getThreadMXBean().getPeakThreadCount()));
+    }
+}
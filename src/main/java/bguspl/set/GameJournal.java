@@ -0,0 +1,308 @@
+package bguspl.set;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Logger;
+
+/**
+ * An append-only binary journal of the game events, with fixed-width records. The game threads only copy the record
+ * into a lock-free ring (never formatting or waiting for the disk), and a background writer thread moves the records
+ * from the ring to a buffer and from the buffer to the file channel. If the ring is full the record is dropped (and
+ * counted) rather than blocking the game.
+ * <p>
+ * The file starts with a header (magic, format version, game seed) followed by RECORD_BYTES long records: the game
+ * time (long), the event type (short), the slot (short), the player (int), the card (int) and a value (long), with -1
+ * for the fields that do not apply. read() streams a journal back record by record.
+ */
+public class GameJournal {
+
+    /**
+     * The events in the journal, and the meaning of their value.
+     */
+    public enum Type {
+        DEAL,          // a card was placed on the table
+        REMOVE,        // a card was removed from the table
+        TOKEN_PLACED,  // a player placed a token
+        TOKEN_REMOVED, // a player removed a token
+        CLAIM,         // a player claimed a set, value = the table version
+        VERDICT,       // the claim was judged, value = 1 for a legal set, 0 for a penalty
+        SCORE,         // a player's score changed, value = the new score
+        RESHUFFLE      // the cards went back to the deck, value = the number of cards in the deck
+    }
+
+    /**
+     * Receives the records read from a journal.
+     */
+    public interface Visitor {
+        void record(long time, Type type, int player, int slot, int card, long value);
+    }
+
+    public static final int MAGIC = 0x5345544a; // "SETJ"
+    public static final int FORMAT_VERSION = 2; // 1 kept the player in a byte
+    public static final int HEADER_BYTES = 16;
+    public static final int RECORD_BYTES = 28;
+
+    private static final int DEFAULT_CAPACITY = 1 << 14;
+    private static final int BUFFER_RECORDS = 4096;
+    private static final long CLOSE_TIMEOUT_MILLIS = TimeUnit.SECONDS.toMillis(5);
+
+    private final Logger logger;
+    private final FileChannel channel;
+
+    /**
+     * The ring of records, 4 longs each (time, type/slot/card packed, player, value), and the sequence number of the
+     * record stored in each entry (the entry is ready when its sequence is the claiming position + 1).
+     */
+    private final long[] ring;
+    private final AtomicLongArray sequences;
+    private final int mask;
+
+    /**
+     * The next ring entry to claim (by the game threads) and to write (by the writer thread only).
+     */
+    private final AtomicLong tail = new AtomicLong();
+    private volatile long head = 0;
+
+    private final LongAdder dropped = new LongAdder();
+    private final Thread writer;
+    private volatile boolean writerIdle = false;
+    private volatile boolean closed = false;
+
+    /**
+     * The write error that stopped the journal (null if none).
+     */
+    private volatile IOException failure;
+
+    private GameJournal(Logger logger, FileChannel channel, int capacity) {
+        this.logger = logger;
+        this.channel = channel;
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        this.ring = new long[size * 4];
+        this.sequences = new AtomicLongArray(size);
+        this.mask = size - 1;
+        writer = new Thread(this::writeLoop, "journal-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * @param file - the journal file of the configuration.
+     * @param game - the number of a game running alongside others.
+     * @return - the journal file of the game: the number is added before the extension (game.journal becomes
+     * game-7.journal), so the games of one JVM do not write over each other's journal.
+     */
+    public static String fileOfGame(String file, int game) {
+        return fileOfGame(file, Integer.toString(game));
+    }
+
+    /**
+     * @param game - the name of a game running alongside others, e.g. "7-replay" for the replay of game 7.
+     * @return - the journal file of the game, named as by fileOfGame(file, number).
+     */
+    public static String fileOfGame(String file, String game) {
+        if (file.isEmpty())
+            return file;
+        int dot = file.lastIndexOf('.');
+        int separator = Math.max(file.lastIndexOf('/'), file.lastIndexOf('\\'));
+        if (dot <= separator + 1) // no extension (or a hidden file)
+            return file + "-" + game;
+        return file.substring(0, dot) + "-" + game + file.substring(dot);
+    }
+
+    /**
+     * Creates a journal file (replacing an existing one).
+     *
+     * @param logger - the logger for the journal's own problems.
+     * @param file   - the journal file.
+     * @param seed   - the seed of the game, kept in the header.
+     * @return - the journal, or null if the file could not be created (the game then runs without a journal).
+     */
+    public static GameJournal open(Logger logger, Path file, long seed) {
+        return open(logger, file, seed, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param capacity - the number of records the ring holds (rounded up to a power of 2).
+     */
+    static GameJournal open(Logger logger, Path file, long seed, int capacity) {
+        try {
+            if (file.getParent() != null)
+                file.getParent().toFile().mkdirs();
+            FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING);
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            header.putInt(MAGIC).putInt(FORMAT_VERSION).putLong(seed).flip();
+            while (header.hasRemaining())
+                channel.write(header);
+            return new GameJournal(logger, channel, capacity);
+        } catch (IOException e) {
+            logger.severe("cannot create the game journal " + file + ": " + e + ", playing without a journal.");
+            return null;
+        }
+    }
+
+    /**
+     * Adds a record to the journal. Never blocks.
+     *
+     * @param time   - the game time of the event (of the game clock).
+     * @param type   - the event.
+     * @param player - the player, or -1.
+     * @param slot   - the slot, or -1.
+     * @param card   - the card, or -1.
+     * @param value  - the value of the event (see Type).
+     */
+    public void append(long time, Type type, int player, int slot, int card, long value) {
+        if (closed)
+            return;
+        long t;
+        do {
+            t = tail.get();
+            if (t - head > mask) { // the ring is full
+                dropped.increment();
+                return;
+            }
+        } while (!tail.compareAndSet(t, t + 1));
+        int index = (int) (t & mask);
+        ring[4 * index] = time;
+        ring[4 * index + 1] = (long) type.ordinal() << 48 | (slot & 0xffffL) << 32 | card & 0xffffffffL;
+        ring[4 * index + 2] = player;
+        ring[4 * index + 3] = value;
+        sequences.lazySet(index, t + 1); // publishes the record to the writer
+        if (writerIdle)
+            LockSupport.unpark(writer);
+    }
+
+    /**
+     * @return - the number of records dropped because the ring was full.
+     */
+    public long dropped() {
+        return dropped.sum();
+    }
+
+    /**
+     * Writes out the records appended so far and closes the file. Records appended later are ignored.
+     */
+    public void close() {
+        if (closed)
+            return;
+        closed = true;
+        LockSupport.unpark(writer);
+        try {
+            writer.join(CLOSE_TIMEOUT_MILLIS);
+        } catch (InterruptedException ignored) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            channel.close();
+        } catch (IOException e) {
+            logger.severe("cannot close the game journal: " + e);
+        }
+        if (failure != null)
+            logger.severe("the game journal stopped on a write error: " + failure);
+        logger.info("game journal: " + head + " records written, " + dropped.sum() + " dropped (journal buffer full).");
+    }
+
+    private void writeLoop() {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_RECORDS * RECORD_BYTES);
+        try {
+            while (!closed || head < tail.get()) {
+                if (!drain(buffer)) {
+                    write(buffer); // the ring is empty, a good time for the disk
+                    writerIdle = true;
+                    if (head == tail.get() && !closed) // check again, a record may have been appended meanwhile
+                        LockSupport.parkNanos(this, TimeUnit.MILLISECONDS.toNanos(100));
+                    writerIdle = false;
+                }
+            }
+            write(buffer);
+        } catch (IOException e) {
+            failure = e;
+            closed = true;
+        }
+    }
+
+    /**
+     * Moves the records that were appended, in order, from the ring to the buffer (writing the buffer out when full).
+     *
+     * @return - true iff at least one record was moved.
+     */
+    private boolean drain(ByteBuffer buffer) throws IOException {
+        boolean moved = false;
+        while (true) {
+            int index = (int) (head & mask);
+            if (sequences.get(index) != head + 1) // nothing more (or claimed but not yet stored)
+                return moved;
+            if (buffer.remaining() < RECORD_BYTES)
+                write(buffer);
+            long packed = ring[4 * index + 1];
+            buffer.putLong(ring[4 * index]);
+            buffer.putShort((short) (packed >>> 48));
+            buffer.putShort((short) (packed >>> 32));
+            buffer.putInt((int) ring[4 * index + 2]);
+            buffer.putInt((int) packed);
+            buffer.putLong(ring[4 * index + 3]);
+            head++; // only the writer thread writes head, freeing the entry for the game threads
+            moved = true;
+        }
+    }
+
+    private void write(ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining())
+            channel.write(buffer);
+        buffer.clear();
+    }
+
+    /**
+     * Reads a journal record by record, without loading it into memory.
+     *
+     * @param file    - the journal file.
+     * @param visitor - receives the records, in order.
+     * @return - the seed of the journaled game.
+     * @throws IOException - if the file cannot be read or is not a journal.
+     */
+    public static long read(Path file, Visitor visitor) throws IOException {
+        Type[] types = Type.values();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_RECORDS * RECORD_BYTES);
+            buffer.limit(HEADER_BYTES);
+            while (buffer.hasRemaining())
+                if (channel.read(buffer) < 0)
+                    throw new IOException(file + " is too short for a game journal");
+            buffer.flip();
+            if (buffer.getInt() != MAGIC)
+                throw new IOException(file + " is not a game journal");
+            int version = buffer.getInt();
+            if (version != FORMAT_VERSION)
+                throw new IOException(file + " is a game journal of format " + version + ", expected " + FORMAT_VERSION);
+            long seed = buffer.getLong();
+            buffer.clear();
+            while (channel.read(buffer) >= 0 || buffer.position() > 0) {
+                buffer.flip();
+                if (buffer.remaining() < RECORD_BYTES && channel.position() == channel.size())
+                    break; // a record cut short (the game was killed while writing)
+                while (buffer.remaining() >= RECORD_BYTES) {
+                    long time = buffer.getLong();
+                    int type = buffer.getShort() & 0xffff;
+                    int slot = buffer.getShort();
+                    int player = buffer.getInt();
+                    int card = buffer.getInt();
+                    long value = buffer.getLong();
+                    if (type >= types.length)
+                        throw new IOException(file + " has an unknown record type " + type);
+                    visitor.record(time, types[type], player, slot, card, value);
+                }
+                buffer.compact();
+            }
+            return seed;
+        }
+    }
+}
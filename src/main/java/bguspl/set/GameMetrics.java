@@ -0,0 +1,304 @@
+package bguspl.set;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import java.util.logging.Logger;
+
+/**
+ * The counters and gauges of the dealer and player internals. One per game, shared by the dealer and the players.
+ * <p>
+ * A counter is a LongAdder, so counting is a few nanoseconds and never contends between the player threads; the
+ * metrics stay on in every game. A gauge is a function registered by the owner of the value and read only when the
+ * metrics are looked at (over JMX, or by the optional periodic dump to the log).
+ */
+public class GameMetrics implements GameMetricsMBean {
+
+    /**
+     * The events counted.
+     */
+    public enum Counter {
+        /** A player thread took a key press from its input buffer. */
+        KEY_PRESSES("key presses"),
+        /** A key press dropped because the dealer was dealing the cards. */
+        KEYS_IGNORED_WHILE_DEALING("keys ignored while dealing"),
+        TOKENS_PLACED("tokens placed"),
+        TOKENS_REMOVED("tokens removed"),
+        /** A player claimed the cards it marked as a set. */
+        CLAIMS("claims"),
+        /** A claim whose cards were gone by the time the dealer got to it. */
+        STALE_CLAIMS("stale claims"),
+        POINTS("points"),
+        PENALTIES("penalties"),
+        CARDS_DEALT("cards dealt"),
+        RESHUFFLES("reshuffles"),
+        /** A claim waited for the dealer's semaphore (SEMAPHORE_WAIT_NANOS holds the total time). */
+        SEMAPHORE_WAITS("semaphore waits"),
+        SEMAPHORE_WAIT_NANOS("semaphore wait ns");
+
+        private final String label;
+
+        Counter(String label) {
+            this.label = label;
+        }
+    }
+
+    /**
+     * The values read when asked for.
+     */
+    public enum Gauge {
+        DECK_SIZE("deck"),
+        CARDS_ON_TABLE("cards on table"),
+        SETS_ON_TABLE("sets on table"),
+        /** The players waiting for the dealer to check their claim. */
+        CLAIM_QUEUE_DEPTH("claim queue"),
+        /** The key presses waiting in all the players' input buffers. */
+        INPUT_QUEUE_DEPTH("input queues"),
+        /** The key presses waiting in the fullest input buffer. */
+        MAX_INPUT_QUEUE_DEPTH("max input queue"),
+        /** The key presses dropped by the players' input buffers (full or too fast). */
+        DROPPED_INPUTS("dropped inputs");
+
+        private final String label;
+
+        Gauge(String label) {
+            this.label = label;
+        }
+    }
+
+    /**
+     * The domain of the MBeans, and the number of the next game (to tell apart the games of one JVM).
+     */
+    public static final String DOMAIN = "bguspl.set";
+    private static final AtomicInteger games = new AtomicInteger();
+
+    private final LongAdder[] counters = new LongAdder[Counter.values().length];
+    private final LongSupplier[] gauges = new LongSupplier[Gauge.values().length];
+
+    /**
+     * The name the metrics are registered under (null if they are not registered).
+     */
+    private volatile ObjectName name;
+
+    /**
+     * The thread dumping the metrics to the log (null if there is none).
+     */
+    private Thread dumper;
+
+    public GameMetrics() {
+        for (int i = 0; i < counters.length; i++)
+            counters[i] = new LongAdder();
+    }
+
+    /**
+     * Counts an event.
+     */
+    public void increment(Counter counter) {
+        counters[counter.ordinal()].increment();
+    }
+
+    /**
+     * Adds to a counter.
+     */
+    public void add(Counter counter, long amount) {
+        counters[counter.ordinal()].add(amount);
+    }
+
+    /**
+     * @return - the value of a counter.
+     */
+    public long count(Counter counter) {
+        return counters[counter.ordinal()].sum();
+    }
+
+    /**
+     * Sets the function that reads a gauge. Called by the owner of the value, before the game starts.
+     */
+    public void gauge(Gauge gauge, LongSupplier value) {
+        gauges[gauge.ordinal()] = value;
+    }
+
+    /**
+     * @return - the current value of a gauge (0 if it was not set).
+     */
+    public long read(Gauge gauge) {
+        LongSupplier value = gauges[gauge.ordinal()];
+        return value == null ? 0 : value.getAsLong();
+    }
+
+    /**
+     * Registers the metrics with the platform MBean server, as game-N (N counts the games of the JVM).
+     *
+     * @param logger - the logger to report a failure to register to.
+     */
+    public void register(Logger logger) {
+        try {
+            ObjectName objectName = new ObjectName(DOMAIN + ":type=GameMetrics,name=game-" + games.incrementAndGet());
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+            name = objectName;
+        } catch (JMException | SecurityException e) {
+            logger.warning("cannot register the game metrics with JMX: " + e);
+        }
+    }
+
+    /**
+     * @return - the name the metrics are registered under (null if they are not registered).
+     */
+    public ObjectName name() {
+        return name;
+    }
+
+    /**
+     * Logs the metrics every period, from a background thread, until closed.
+     *
+     * @param logger       - the logger to write to.
+     * @param periodMillis - the time between two dumps in milliseconds (of the wall clock).
+     */
+    public synchronized void startLogging(Logger logger, long periodMillis) {
+        if (dumper != null || periodMillis <= 0)
+            return;
+        dumper = new Thread(() -> {
+            try {
+                while (true) {
+                    TimeUnit.MILLISECONDS.sleep(periodMillis);
+                    logger.info("metrics: " + getSummary());
+                }
+            } catch (InterruptedException ignored) { // closed
+            }
+        }, "metrics-logger");
+        dumper.setDaemon(true);
+        dumper.start();
+    }
+
+    /**
+     * Stops the dump to the log and unregisters the metrics.
+     */
+    public synchronized void close() {
+        if (dumper != null) {
+            dumper.interrupt();
+            dumper = null;
+        }
+        ObjectName objectName = name;
+        if (objectName == null)
+            return;
+        name = null;
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            server.unregisterMBean(objectName);
+        } catch (JMException ignored) { // already gone
+        }
+    }
+
+    @Override
+    public long getKeyPresses() {
+        return count(Counter.KEY_PRESSES);
+    }
+
+    @Override
+    public long getKeysIgnoredWhileDealing() {
+        return count(Counter.KEYS_IGNORED_WHILE_DEALING);
+    }
+
+    @Override
+    public long getTokensPlaced() {
+        return count(Counter.TOKENS_PLACED);
+    }
+
+    @Override
+    public long getTokensRemoved() {
+        return count(Counter.TOKENS_REMOVED);
+    }
+
+    @Override
+    public long getClaims() {
+        return count(Counter.CLAIMS);
+    }
+
+    @Override
+    public long getStaleClaims() {
+        return count(Counter.STALE_CLAIMS);
+    }
+
+    @Override
+    public long getPoints() {
+        return count(Counter.POINTS);
+    }
+
+    @Override
+    public long getPenalties() {
+        return count(Counter.PENALTIES);
+    }
+
+    @Override
+    public long getCardsDealt() {
+        return count(Counter.CARDS_DEALT);
+    }
+
+    @Override
+    public long getReshuffles() {
+        return count(Counter.RESHUFFLES);
+    }
+
+    @Override
+    public long getSemaphoreWaits() {
+        return count(Counter.SEMAPHORE_WAITS);
+    }
+
+    @Override
+    public double getAverageSemaphoreWaitMicros() {
+        long waits = count(Counter.SEMAPHORE_WAITS);
+        return waits == 0 ? 0 : count(Counter.SEMAPHORE_WAIT_NANOS) / 1000.0 / waits;
+    }
+
+    @Override
+    public long getDeckSize() {
+        return read(Gauge.DECK_SIZE);
+    }
+
+    @Override
+    public long getCardsOnTable() {
+        return read(Gauge.CARDS_ON_TABLE);
+    }
+
+    @Override
+    public long getSetsOnTable() {
+        return read(Gauge.SETS_ON_TABLE);
+    }
+
+    @Override
+    public long getClaimQueueDepth() {
+        return read(Gauge.CLAIM_QUEUE_DEPTH);
+    }
+
+    @Override
+    public long getInputQueueDepth() {
+        return read(Gauge.INPUT_QUEUE_DEPTH);
+    }
+
+    @Override
+    public long getMaxInputQueueDepth() {
+        return read(Gauge.MAX_INPUT_QUEUE_DEPTH);
+    }
+
+    @Override
+    public long getDroppedInputs() {
+        return read(Gauge.DROPPED_INPUTS);
+    }
+
+    @Override
+    public String getSummary() {
+        StringBuilder sb = new StringBuilder();
+        for (Counter counter : Counter.values())
+            if (counter != Counter.SEMAPHORE_WAIT_NANOS)
+                sb.append(counter.label).append('=').append(count(counter)).append(", ");
+        sb.append(String.format("avg semaphore wait=%.1fus", getAverageSemaphoreWaitMicros()));
+        for (Gauge gauge : Gauge.values())
+            sb.append(", ").append(gauge.label).append('=').append(read(gauge));
+        return sb.toString();
+    }
+}
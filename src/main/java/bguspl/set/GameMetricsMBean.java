@@ -0,0 +1,54 @@
+package bguspl.set;
+
+/**
+ * The JMX view of a game's metrics (see GameMetrics), shown in jconsole or VisualVM under bguspl.set/GameMetrics.
+ * The counters count from the start of the game, the gauges are read when asked for.
+ */
+public interface GameMetricsMBean {
+
+    long getKeyPresses();
+
+    long getKeysIgnoredWhileDealing();
+
+    long getTokensPlaced();
+
+    long getTokensRemoved();
+
+    long getClaims();
+
+    long getStaleClaims();
+
+    long getPoints();
+
+    long getPenalties();
+
+    long getCardsDealt();
+
+    long getReshuffles();
+
+    long getSemaphoreWaits();
+
+    /**
+     * @return - the average time a claim waited for the dealer's semaphore, in microseconds.
+     */
+    double getAverageSemaphoreWaitMicros();
+
+    long getDeckSize();
+
+    long getCardsOnTable();
+
+    long getSetsOnTable();
+
+    long getClaimQueueDepth();
+
+    long getInputQueueDepth();
+
+    long getMaxInputQueueDepth();
+
+    long getDroppedInputs();
+
+    /**
+     * @return - all the counters and gauges on one line, as in the log.
+     */
+    String getSummary();
+}
@@ -0,0 +1,128 @@
+package bguspl.set;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Records the key presses the players applied during a game (with the game time they were applied at) and a
+ * fingerprint of everything the game did (the cards dealt and removed and the points and penalties, with their times).
+ * <p>
+ * A recording can be replayed: the computer players then press exactly the recorded keys at the recorded times
+ * instead of choosing their own. With the same seed, a replay that plays the same game ends with the same
+ * fingerprint, so two runs (e.g. of two builds) can be checked to be the very same game.
+ */
+public class GameRecording {
+
+    /**
+     * A key press applied by a player.
+     */
+    public static class Input {
+        public final long time;
+        public final int player;
+        public final int slot;
+
+        public Input(long time, int player, int slot) {
+            this.time = time;
+            this.player = player;
+            this.slot = slot;
+        }
+    }
+
+    /**
+     * The kinds of events in the fingerprint.
+     */
+    public static final int DEAL = 1;
+    public static final int REMOVE = 2;
+    public static final int POINT = 3;
+    public static final int PENALTY = 4;
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    /**
+     * The recorded inputs, the fingerprint and the number of events in it (all guarded by this).
+     */
+    private final List<Input> inputs = new ArrayList<>();
+    private long fingerprint = FNV_OFFSET;
+    private long events;
+
+    /**
+     * The inputs to replay (null when recording a new game).
+     */
+    private final List<Input> replay;
+
+    private GameRecording(List<Input> replay) {
+        this.replay = replay;
+    }
+
+    /**
+     * @return - a new, empty recording.
+     */
+    public static GameRecording record() {
+        return new GameRecording(null);
+    }
+
+    /**
+     * @param recording - the recording of a game.
+     * @return - a new recording that replays the inputs of the given one.
+     */
+    public static GameRecording replay(GameRecording recording) {
+        return new GameRecording(recording.inputs());
+    }
+
+    /**
+     * @return - true iff the players should replay recorded inputs.
+     */
+    public boolean isReplay() {
+        return replay != null;
+    }
+
+    /**
+     * @param player - the player id.
+     * @return - the recorded inputs of the player to replay, in order.
+     */
+    public List<Input> replayInputs(int player) {
+        List<Input> playerInputs = new ArrayList<>();
+        for (Input input : replay)
+            if (input.player == player)
+                playerInputs.add(input);
+        return playerInputs;
+    }
+
+    /**
+     * Records a key press applied by a player.
+     */
+    public synchronized void input(long time, int player, int slot) {
+        inputs.add(new Input(time, player, slot));
+    }
+
+    /**
+     * Adds an event to the fingerprint (FNV-1a over the event values, in the order the events happened).
+     *
+     * @param values - the kind of the event, then its values.
+     */
+    public synchronized void event(long... values) {
+        for (long value : values)
+            for (int i = 0; i < Long.BYTES; i++) {
+                fingerprint ^= (value >>> (8 * i)) & 0xff;
+                fingerprint *= FNV_PRIME;
+            }
+        events++;
+    }
+
+    /**
+     * @return - the inputs recorded so far, in the order they were applied.
+     */
+    public synchronized List<Input> inputs() {
+        return Collections.unmodifiableList(new ArrayList<>(inputs));
+    }
+
+    public synchronized long fingerprint() {
+        return fingerprint;
+    }
+
+    public synchronized long events() {
+        return events;
+    }
+}
@@ -0,0 +1,156 @@
+package bguspl.set;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.logging.Logger;
+
+/**
+ * Creates and starts the game threads (players and computer players), either as platform threads or as virtual
+ * threads. Virtual threads need Java 21 or later; the project targets Java 8, so they are created by reflection and
+ * the platform threads are used as a fallback when the running JVM does not support them.
+ * <p>
+ * One per game: it also keeps the resources used by the threads of its game (see usages()).
+ */
+public class GameThreads {
+
+    private final Logger logger;
+    private final Clock clock;
+
+    /**
+     * Creates an unstarted virtual thread builder (null if virtual threads are not used or not supported).
+     */
+    private final Method ofVirtual;
+    private final Method name;
+    private final Method unstarted;
+
+    /**
+     * A thread of the game, and the resources it used once it ended.
+     */
+    private static class Measured {
+        final String name;
+        final Thread thread;
+        final long startNanos = System.nanoTime();
+        volatile ThreadLogger.Usage usage;
+
+        Measured(String name, Thread thread) {
+            this.name = name;
+            this.thread = thread;
+        }
+    }
+
+    /**
+     * The threads of this game, in the order they started.
+     */
+    private final ConcurrentLinkedQueue<Measured> measured = new ConcurrentLinkedQueue<>();
+
+    public GameThreads(Logger logger, boolean virtual) {
+        this(logger, virtual, new SystemClock());
+    }
+
+    /**
+     * @param clock - the clock of the game, told about every thread started.
+     */
+    public GameThreads(Logger logger, boolean virtual, Clock clock) {
+        this.logger = logger;
+        this.clock = clock;
+        Method ofVirtual = null, name = null, unstarted = null;
+        if (virtual) try {
+            Class<?> builder = Class.forName("java.lang.Thread$Builder");
+            ofVirtual = Thread.class.getMethod("ofVirtual");
+            name = builder.getMethod("name", String.class);
+            unstarted = builder.getMethod("unstarted", Runnable.class);
+        } catch (ReflectiveOperationException e) {
+            logger.severe("warning: virtual threads are not supported by this JVM, using platform threads.");
+            ofVirtual = null;
+        }
+        this.ofVirtual = ofVirtual;
+        this.name = name;
+        this.unstarted = unstarted;
+    }
+
+    /**
+     * @return - true iff the threads created are virtual threads.
+     */
+    public boolean isVirtual() {
+        return ofVirtual != null;
+    }
+
+    /**
+     * Creates a new game thread and starts it.
+     *
+     * @param target - the code the thread runs.
+     * @param name   - the name of the thread.
+     * @return - the started thread.
+     */
+    public Thread start(Runnable target, String name) {
+        target = measure(clock.track(name, target), name);
+        Thread thread = null;
+        if (ofVirtual != null) try {
+            thread = (Thread) unstarted.invoke(this.name.invoke(ofVirtual.invoke(null), name), target);
+        } catch (ReflectiveOperationException e) {
+            logger.severe("cannot create virtual thread " + name + ": " + e + ", using a platform thread.");
+        }
+        if (thread == null)
+            thread = new ThreadLogger(target, name, logger);
+        thread.start();
+        return thread;
+    }
+
+    /**
+     * Wraps the code of a thread so that the resources the thread uses are kept with the other threads of this game.
+     * Used for the threads started here, and for a thread started by someone else (e.g. the dealer thread of Main).
+     *
+     * @param target - the code the thread runs.
+     * @param name   - the name of the thread.
+     * @return - the code to run in the thread instead.
+     */
+    public Runnable measure(Runnable target, String name) {
+        return () -> {
+            Measured thread = new Measured(name, Thread.currentThread());
+            measured.add(thread);
+            try {
+                target.run();
+            } finally {
+                thread.usage = ThreadLogger.measureCurrent(name, System.nanoTime() - thread.startNanos);
+            }
+        };
+    }
+
+    /**
+     * @return - the number of threads of this game that are running now.
+     */
+    public int running() {
+        int running = 0;
+        for (Measured thread : measured)
+            if (thread.usage == null)
+                running++;
+        return running;
+    }
+
+    /**
+     * @return - the resources used by the threads of this game: all of it for the threads that ended, and so far
+     * for the threads still running (sampled now, so a thread that hangs or spins shows up too). The JVM does not
+     * measure the cpu time of virtual threads, only their wall time is known.
+     */
+    public List<ThreadLogger.Usage> usages() {
+        List<ThreadLogger.Usage> usages = new ArrayList<>();
+        for (Measured thread : measured) {
+            ThreadLogger.Usage usage = thread.usage;
+            if (usage == null) {
+                ThreadLogger.Usage sampled = ThreadLogger.sample(thread.thread, System.nanoTime() - thread.startNanos);
+                usage = thread.usage != null ? thread.usage : sampled; // it may have ended while sampled
+            }
+            usages.add(usage);
+        }
+        return usages;
+    }
+
+    /**
+     * @return - a table of the resources used by the threads of this game, the busiest first.
+     */
+    public String usageSummary() {
+        return ThreadLogger.summary(usages());
+    }
+}
@@ -5,6 +5,7 @@ import bguspl.set.ex.Player;
 import java.awt.event.KeyAdapter;
 import java.awt.event.KeyEvent;
 import java.util.Arrays;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
 /**
@@ -37,14 +38,22 @@ class InputManager extends KeyAdapter {
         keyToSlot = Arrays.copyOf(keyToSlot, keyCode + 1);
     }
 
+    /**
+     * Runs on the Event Dispatch Thread, so it only stamps the key press and hands it to the player's input buffer
+     * (lock-free, never blocks). The stamp travels with the key press to measure the time to token and to verdict.
+     */
     @Override
     public void keyPressed(KeyEvent e) {
+        long pressNanos = System.nanoTime();
         // dispatch the key event to the player according to the key map
         int keyCode = e.getKeyCode();
+        if (keyCode < 0 || keyCode >= keyMap.length)
+            return;
         int player = keyMap[keyCode] - 1;
-        if (player >= 0){
-            logger.severe("key " + keyCode + " was pressed by player " + (player + 1));
-            players[player].keyPressed(keyToSlot[keyCode]);
+        if (player >= 0 && players[player] != null) {
+            if (logger.isLoggable(Level.FINEST))
+                logger.log(Level.FINEST, "key {0} was pressed by player {1}", new Object[]{keyCode, player + 1});
+            players[player].keyPressed(keyToSlot[keyCode], pressNanos);
         }
     }
 }
@@ -0,0 +1,120 @@
+package bguspl.set;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A histogram of durations (in nanoseconds) with log-linear buckets, like an HDR histogram: every power of two is
+ * split into SUB_BUCKETS buckets, so a value is kept with about 3% precision from nanoseconds up to hours in a fixed
+ * array. Recording is one atomic increment (no locks, no allocation), so it can be done on the hot path by any thread,
+ * and the percentiles can be read at any time while the game runs.
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    /**
+     * Values from 2^(MAX_EXPONENT+1) ns (about 2.4 hours) up are counted in the last bucket.
+     */
+    private static final int MAX_EXPONENT = 42;
+    private static final int BUCKETS = index(1L << MAX_EXPONENT) + SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder total = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    /**
+     * @return - the bucket of a value: the values below 2 * SUB_BUCKETS have a bucket each, then each power of two is
+     * split into SUB_BUCKETS buckets by the bits after the highest one.
+     */
+    private static int index(long value) {
+        if (value < 2 * SUB_BUCKETS)
+            return (int) value;
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int shift = exponent - SUB_BUCKET_BITS;
+        return shift * SUB_BUCKETS + (int) (value >>> shift);
+    }
+
+    /**
+     * @return - the highest value counted in a bucket.
+     */
+    private static long highestValue(int index) {
+        if (index < 2 * SUB_BUCKETS)
+            return index;
+        int shift = index / SUB_BUCKETS - 1;
+        long lowest = (long) (index % SUB_BUCKETS + SUB_BUCKETS) << shift;
+        return lowest + (1L << shift) - 1;
+    }
+
+    /**
+     * Records a duration.
+     *
+     * @param nanos - the duration in nanoseconds (negative durations are counted as 0).
+     */
+    public void record(long nanos) {
+        long value = Math.max(0, nanos);
+        counts.getAndIncrement(Math.min(index(value), BUCKETS - 1));
+        total.increment();
+        sum.add(value);
+        max.accumulate(value);
+    }
+
+    /**
+     * @return - the number of durations recorded.
+     */
+    public long count() {
+        return total.sum();
+    }
+
+    /**
+     * @return - the longest duration recorded (ns).
+     */
+    public long max() {
+        return max.get();
+    }
+
+    /**
+     * @return - the average duration (ns), or 0 if nothing was recorded.
+     */
+    public double mean() {
+        long count = count();
+        return count == 0 ? 0 : (double) sum.sum() / count;
+    }
+
+    /**
+     * @param percentile - the percentile, between 0 and 100.
+     * @return - the duration (ns) that the percentile of the recorded durations is at or below (within the precision
+     * of the buckets), or 0 if nothing was recorded.
+     */
+    public long percentile(double percentile) {
+        long[] snapshot = new long[BUCKETS];
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshot[i] = counts.get(i);
+            count += snapshot[i];
+        }
+        if (count == 0)
+            return 0;
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += snapshot[i];
+            if (seen >= rank)
+                return Math.min(highestValue(i), max());
+        }
+        return max();
+    }
+
+    private static String millis(long nanos) {
+        return String.format("%.3fms", nanos / 1_000_000.0);
+    }
+
+    @Override
+    public String toString() {
+        return "count " + count() + ", mean " + millis(Math.round(mean())) + ", p50 " + millis(percentile(50))
+                + ", p99 " + millis(percentile(99)) + ", p99.9 " + millis(percentile(99.9)) + ", max " + millis(max());
+    }
+}
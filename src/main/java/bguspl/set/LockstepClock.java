@@ -0,0 +1,227 @@
+package bguspl.set;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BooleanSupplier;
+
+/**
+ * A simulated clock that also makes the game deterministic: the game threads run one at a time, like a single
+ * processor. A thread runs until it sleeps on the clock or waits for a condition (awaitUntil), then the next thread
+ * is picked: the first by name of the threads that are ready (their wake up time came, their condition holds, or they
+ * were interrupted). When no thread is ready, the time jumps to the earliest wake up time.
+ * <p>
+ * So the same seed and the same key presses always play the very same game. The game threads must be started by
+ * GameThreads (so the clock knows them before they run) and must not block any other way than on the clock.
+ */
+public class LockstepClock implements Clock {
+
+    /**
+     * How often threads waiting for the turn check for events from outside the game (e.g. the game being stopped).
+     */
+    private static final long IDLE_CHECK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    /**
+     * A game thread known to the clock.
+     */
+    private final class Party {
+        final String name;
+        final long order;
+        final Condition turn = lock.newCondition();
+        long wakeTime = Long.MAX_VALUE;
+        BooleanSupplier condition;
+        boolean interrupted;
+
+        Party(String name) {
+            this.name = name;
+            this.order = nextOrder.incrementAndGet();
+        }
+
+        boolean isReady() {
+            return wakeTime <= now || interrupted || condition != null && condition.getAsBoolean();
+        }
+    }
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final AtomicLong nextOrder = new AtomicLong();
+
+    /**
+     * The parties waiting for their turn, by name (guarded by the lock).
+     */
+    private final TreeSet<Party> waiting = new TreeSet<>(Comparator.<Party, String>comparing(p -> p.name).thenComparingLong(p -> p.order));
+
+    /**
+     * The party whose turn it is, or null if none (guarded by the lock).
+     */
+    private Party running;
+
+    /**
+     * The parties of the running threads (guarded by the lock).
+     */
+    private final Map<Thread, Party> parties = new HashMap<>();
+
+    private final ThreadLocal<Party> current = new ThreadLocal<>();
+
+    private volatile long now;
+
+    @Override
+    public long millis() {
+        return now;
+    }
+
+    @Override
+    public boolean isLockstep() {
+        return true;
+    }
+
+    @Override
+    public boolean isSimulated() {
+        return true;
+    }
+
+    @Override
+    public Runnable track(String name, Runnable target) {
+        Party party = new Party(name);
+        lock.lock();
+        try {
+            party.wakeTime = now; // ready to start, and known before it starts so its start does not depend on the thread scheduling
+            waiting.add(party);
+        } finally {
+            lock.unlock();
+        }
+        return () -> {
+            current.set(party);
+            lock.lock();
+            try {
+                parties.put(Thread.currentThread(), party);
+                if (running == null)
+                    next();
+                awaitTurn(party);
+                party.wakeTime = Long.MAX_VALUE;
+                if (party.interrupted) {
+                    party.interrupted = false;
+                    Thread.currentThread().interrupt();
+                }
+            } finally {
+                lock.unlock();
+            }
+            try {
+                target.run();
+            } finally {
+                lock.lock();
+                try {
+                    parties.remove(Thread.currentThread());
+                    waiting.remove(party);
+                    if (running == party) {
+                        running = null;
+                        next();
+                    }
+                } finally {
+                    lock.unlock();
+                }
+                current.remove();
+            }
+        };
+    }
+
+    /**
+     * Interrupts a thread, making it ready at once (the interrupt flag alone is not reliable while a thread waits).
+     */
+    @Override
+    public void interrupt(Thread thread) {
+        lock.lock();
+        try {
+            Party party = parties.get(thread);
+            if (party != null)
+                party.interrupted = true;
+        } finally {
+            lock.unlock();
+        }
+        thread.interrupt();
+    }
+
+    @Override
+    public void sleep(long millis) throws InterruptedException {
+        Party party = current.get();
+        if (party == null)
+            throw new IllegalStateException("sleeping on a lockstep clock from a thread it does not know");
+        wait(party, now + Math.max(0, millis), null);
+    }
+
+    @Override
+    public void awaitUntil(BooleanSupplier condition) throws InterruptedException {
+        Party party = current.get();
+        if (party == null)
+            throw new IllegalStateException("waiting on a lockstep clock from a thread it does not know");
+        wait(party, Long.MAX_VALUE, condition);
+    }
+
+    /**
+     * Gives the turn to the next party and waits for the turn to come back (unless the party can go on right away).
+     */
+    private void wait(Party party, long wakeTime, BooleanSupplier condition) throws InterruptedException {
+        lock.lock();
+        try {
+            if (Thread.interrupted())
+                party.interrupted = true;
+            party.wakeTime = wakeTime;
+            party.condition = condition;
+            if (!party.isReady()) {
+                waiting.add(party);
+                running = null;
+                next();
+                awaitTurn(party);
+            }
+            party.wakeTime = Long.MAX_VALUE;
+            party.condition = null;
+            if (party.interrupted) {
+                party.interrupted = false;
+                Thread.interrupted();
+                throw new InterruptedException();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Waits (holding the lock) until it is the party's turn.
+     */
+    private void awaitTurn(Party party) {
+        while (running != party) {
+            try {
+                party.turn.awaitNanos(IDLE_CHECK_NANOS);
+            } catch (InterruptedException e) { // interrupted from outside the game
+                party.interrupted = true;
+            }
+            if (running == null)
+                next(); // no one is running, something outside the game may have made a party ready
+        }
+    }
+
+    /**
+     * Gives the turn to the first ready party, moving the time on if no party is ready (called holding the lock).
+     */
+    private void next() {
+        while (!waiting.isEmpty()) {
+            for (Party party : waiting)
+                if (party.isReady()) {
+                    waiting.remove(party);
+                    running = party;
+                    party.turn.signal();
+                    return;
+                }
+            long wakeTime = Long.MAX_VALUE;
+            for (Party party : waiting)
+                wakeTime = Math.min(wakeTime, party.wakeTime);
+            if (wakeTime == Long.MAX_VALUE)
+                return; // all the parties wait for conditions, only something outside the game can help
+            now = wakeTime;
+        }
+    }
+}
@@ -0,0 +1,352 @@
+package bguspl.set;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Computes game statistics from the log files of Main (one game per file, in the format set by
+ * Main.setLoggerLevelAndFormat): the sets found, the penalties, the time between sets and the jitter of the dealer's
+ * countdown ticks. The user interface calls are logged at FINE/FINEST (only for the Swing user interface), so the logs
+ * need LogLevel=ALL.
+ * <p>
+ * The files are memory mapped and parsed byte by byte (no regular expressions, no objects per line), and the files of
+ * a directory are analyzed in parallel.
+ * <p>
+ * Usage: LogAnalyzer [directory or log files...] (the logs directory by default).
+ */
+public class LogAnalyzer {
+
+    /**
+     * The largest part of a file mapped at once.
+     */
+    static final int MAX_WINDOW = 1 << 28;
+
+    /**
+     * The dealer updates the countdown every second (unless woken up early by a claim).
+     */
+    private static final long TICK_MILLIS = 1000;
+
+    private static final int MAX_PLAYERS = 64;
+    private static final long MILLIS_PER_DAY = 24 * 60 * 60 * 1000L;
+
+    private static final byte[] SETTING_PLAYER = bytes("setting player ");
+    private static final byte[] SCORE_TO = bytes(" score to ");
+    private static final byte[] FREEZE_TO = bytes(" freeze to ");
+    private static final byte[] UPDATING_COUNTDOWN = bytes("updating countdown to ");
+    private static final byte[] PLACING_CARD = bytes("placing card ");
+
+    /**
+     * The statistics of a log file (or of many, when merged).
+     */
+    public static class Stats {
+        public final String name;
+        public long games;
+        public long lines;
+        public long cardsDealt;
+        public long sets;
+        public long penalties;
+
+        /**
+         * The time between consecutive sets (only within a game).
+         */
+        public long setIntervals;
+        public long setIntervalSumMillis;
+        public long setIntervalMaxMillis;
+
+        /**
+         * The jitter of the countdown ticks: how much the time between two countdown updates differs from the
+         * dealer's tick of a second.
+         */
+        public long ticks;
+        public long tickJitterSumMillis;
+        public long tickJitterMaxMillis;
+
+        public Stats(String name) {
+            this.name = name;
+        }
+
+        public double averageSetIntervalMillis() {
+            return setIntervals == 0 ? 0 : (double) setIntervalSumMillis / setIntervals;
+        }
+
+        public double averageTickJitterMillis() {
+            return ticks == 0 ? 0 : (double) tickJitterSumMillis / ticks;
+        }
+
+        void add(Stats other) {
+            games += other.games;
+            lines += other.lines;
+            cardsDealt += other.cardsDealt;
+            sets += other.sets;
+            penalties += other.penalties;
+            setIntervals += other.setIntervals;
+            setIntervalSumMillis += other.setIntervalSumMillis;
+            setIntervalMaxMillis = Math.max(setIntervalMaxMillis, other.setIntervalMaxMillis);
+            ticks += other.ticks;
+            tickJitterSumMillis += other.tickJitterSumMillis;
+            tickJitterMaxMillis = Math.max(tickJitterMaxMillis, other.tickJitterMaxMillis);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s: %d lines, %d cards dealt, %d sets, %d penalties, %.1fs between sets (max %.1fs),"
+                            + " tick jitter %.1fms (max %dms)", name, lines, cardsDealt, sets, penalties,
+                    averageSetIntervalMillis() / 1000, setIntervalMaxMillis / 1000.0, averageTickJitterMillis(),
+                    tickJitterMaxMillis);
+        }
+    }
+
+    /**
+     * The state of the parse of a file.
+     */
+    private static class Parser {
+        final Stats stats;
+        final boolean[] inFreeze = new boolean[MAX_PLAYERS];
+        final boolean[] pointPending = new boolean[MAX_PLAYERS];
+        long dayOffset;
+        long lastTime = -1;
+        long lastSetTime = -1;
+        long lastTickTime = -1;
+        long lastCountdown = -1;
+        boolean lastTickWasReset;
+
+        /**
+         * The position after the last number parsed.
+         */
+        int end;
+
+        Parser(Stats stats) {
+            this.stats = stats;
+        }
+
+        /**
+         * Parses a line: "[HH:mm:ss.SSS] [LEVEL  ] message".
+         */
+        void line(MappedByteBuffer buffer, int start, int end) {
+            stats.lines++;
+            if (end - start < 16 || buffer.get(start) != '[')
+                return;
+            long time = time(buffer, start + 1);
+            if (time < 0)
+                return;
+            if (lastTime >= 0 && time + dayOffset < lastTime)
+                dayOffset += MILLIS_PER_DAY; // the game went on past midnight
+            time += dayOffset;
+            lastTime = time;
+
+            int message = start + 15; // after the time, at the level
+            while (message < end && buffer.get(message) != ']')
+                message++;
+            message += 2;
+            if (message >= end)
+                return;
+
+            if (startsWith(buffer, message, end, UPDATING_COUNTDOWN)) {
+                long countdown = number(buffer, message + UPDATING_COUNTDOWN.length, end);
+                if (countdown >= 0)
+                    tick(time, countdown);
+            } else if (startsWith(buffer, message, end, SETTING_PLAYER)) {
+                int player = (int) number(buffer, message + SETTING_PLAYER.length, end) - 1;
+                if (player < 0 || player >= MAX_PLAYERS)
+                    return;
+                int at = this.end;
+                if (startsWith(buffer, at, end, SCORE_TO))
+                    score(time, player);
+                else if (startsWith(buffer, at, end, FREEZE_TO))
+                    freeze(player, number(buffer, at + FREEZE_TO.length, end));
+            } else if (startsWith(buffer, message, end, PLACING_CARD))
+                stats.cardsDealt++;
+        }
+
+        /**
+         * Measures a countdown update against the previous one. A countdown that went up was reset (on a reshuffle or
+         * a set), so neither it nor the update after it is measured.
+         */
+        void tick(long time, long countdown) {
+            boolean reset = lastCountdown < 0 || countdown >= lastCountdown;
+            if (!reset && !lastTickWasReset) {
+                long jitter = Math.abs(time - lastTickTime - TICK_MILLIS);
+                stats.ticks++;
+                stats.tickJitterSumMillis += jitter;
+                stats.tickJitterMaxMillis = Math.max(stats.tickJitterMaxMillis, jitter);
+            }
+            lastTickTime = time;
+            lastCountdown = countdown;
+            lastTickWasReset = reset;
+        }
+
+        void score(long time, int player) {
+            stats.sets++;
+            pointPending[player] = true;
+            if (lastSetTime >= 0) {
+                long interval = time - lastSetTime;
+                stats.setIntervals++;
+                stats.setIntervalSumMillis += interval;
+                stats.setIntervalMaxMillis = Math.max(stats.setIntervalMaxMillis, interval);
+            }
+            lastSetTime = time;
+        }
+
+        /**
+         * A freeze counts down to 0. One that does not follow a score change is a penalty.
+         */
+        void freeze(int player, long millis) {
+            if (millis < 0)
+                return;
+            if (!inFreeze[player]) {
+                if (pointPending[player])
+                    pointPending[player] = false;
+                else
+                    stats.penalties++;
+            }
+            inFreeze[player] = millis > 0;
+        }
+
+        /**
+         * @return - the time of day "HH:mm:ss.SSS" at the position in milliseconds, or -1 if it is not a time.
+         */
+        long time(MappedByteBuffer buffer, int at) {
+            long hours = digits(buffer, at, 2), minutes = digits(buffer, at + 3, 2);
+            long seconds = digits(buffer, at + 6, 2), millis = digits(buffer, at + 9, 3);
+            if (hours < 0 || minutes < 0 || seconds < 0 || millis < 0)
+                return -1;
+            return ((hours * 60 + minutes) * 60 + seconds) * 1000 + millis;
+        }
+
+        long digits(MappedByteBuffer buffer, int at, int count) {
+            long value = 0;
+            for (int i = at; i < at + count; i++) {
+                int digit = buffer.get(i) - '0';
+                if (digit < 0 || digit > 9)
+                    return -1;
+                value = value * 10 + digit;
+            }
+            return value;
+        }
+
+        /**
+         * @return - the number at the position (-1 if there is none), setting end to the position after it.
+         */
+        long number(MappedByteBuffer buffer, int at, int end) {
+            long value = 0;
+            int i = at;
+            for (; i < end; i++) {
+                int digit = buffer.get(i) - '0';
+                if (digit < 0 || digit > 9)
+                    break;
+                value = value * 10 + digit;
+            }
+            this.end = i;
+            return i == at ? -1 : value;
+        }
+    }
+
+    private static byte[] bytes(String text) {
+        return text.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    private static boolean startsWith(MappedByteBuffer buffer, int at, int end, byte[] prefix) {
+        if (end - at < prefix.length)
+            return false;
+        for (int i = 0; i < prefix.length; i++)
+            if (buffer.get(at + i) != prefix[i])
+                return false;
+        return true;
+    }
+
+    /**
+     * Analyzes a log file, mapping at most MAX_WINDOW bytes of it at once.
+     *
+     * @param file - the log file.
+     * @return - the statistics of the game in the file.
+     * @throws IOException - if the file cannot be read.
+     */
+    public static Stats analyze(Path file) throws IOException {
+        return analyze(file, MAX_WINDOW);
+    }
+
+    static Stats analyze(Path file, int maxWindow) throws IOException {
+        Parser parser = new Parser(new Stats(file.getFileName().toString()));
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long position = 0;
+            while (position < size) {
+                int window = (int) Math.min(maxWindow, size - position);
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, window);
+                boolean last = position + window == size;
+                int start = 0;
+                for (int i = 0; i < window; i++)
+                    if (buffer.get(i) == '\n') {
+                        int end = i > start && buffer.get(i - 1) == '\r' ? i - 1 : i;
+                        parser.line(buffer, start, end);
+                        start = i + 1;
+                    }
+                if (last) {
+                    if (start < window)
+                        parser.line(buffer, start, window); // the last line has no line break
+                    break;
+                }
+                if (start == 0) // a single line longer than the window, skip it
+                    start = window;
+                position += start; // the next window starts at the line cut by this one
+            }
+        }
+        parser.stats.games = parser.stats.cardsDealt > 0 ? 1 : 0; // a log without deals is a run that did not play
+        return parser.stats;
+    }
+
+    /**
+     * Analyzes log files in parallel.
+     *
+     * @param files - the log files.
+     * @return - the statistics of each file, in the order of the files.
+     */
+    public static List<Stats> analyze(List<Path> files) {
+        return files.parallelStream().map(file -> {
+            try {
+                return analyze(file);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }).collect(Collectors.toList());
+    }
+
+    public static void main(String[] args) throws IOException {
+        List<Path> files = new ArrayList<>();
+        for (String arg : args.length > 0 ? args : new String[]{"logs"}) {
+            Path path = Paths.get(arg);
+            if (Files.isDirectory(path))
+                try (Stream<Path> list = Files.list(path)) {
+                    list.filter(p -> p.toString().endsWith(".log")).sorted().forEach(files::add);
+                }
+            else
+                files.add(path);
+        }
+
+        long start = System.nanoTime();
+        List<Stats> results = analyze(files);
+        double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+
+        Stats total = new Stats("total");
+        long bytes = 0;
+        for (int i = 0; i < results.size(); i++) {
+            System.out.println(results.get(i));
+            total.add(results.get(i));
+            bytes += Files.size(files.get(i));
+        }
+        System.out.println(total + ", " + total.games + " games");
+        System.out.println(String.format("%d files, %.1fMB in %.2fs on %d cores", files.size(), bytes / 1e6, seconds,
+                Runtime.getRuntime().availableProcessors()));
+    }
+}
@@ -47,15 +47,19 @@ public class Main {
 
         Player[] players = new Player[config.players];
         UserInterface ui = null;
-        try {
-            ui = new UserInterfaceSwing(logger, config, players);
-        } catch (UnsupportedOperationException | IllegalArgumentException e) {
+        if (config.userInterface.equals("swing")) try {
+            // the game threads publish to the event bus, the swing components are only touched on the EDT
+            ui = new UserInterfaceEventBus(new UserInterfaceSwing(logger, config, players), config.players);
+            ui = new UserInterfaceDecorator(logger, util, ui); // the headless user interface keeps its own counts
+        } catch (UnsupportedOperationException | IllegalArgumentException e) { // including HeadlessException
             logger.severe("error creating swing user interface: " + e.getMessage());
-            logger.severe("will try to run without user interface");
+            logger.severe("will run with the headless user interface");
+        }
+        if (ui == null) {
+            ui = new UserInterfaceHeadless(logger, config);
             if (config.humanPlayers > 0)
-                logger.severe("warning: running with human players with no user interface");
+                logger.severe("warning: running with human players with no display");
         }
-        ui = new UserInterfaceDecorator(logger, util, ui);
 
         Env env = new Env(logger, config, ui, util);
 
@@ -66,20 +70,25 @@ public class Main {
             players[i] = new Player(env, dealer, table, i, i < env.config.humanPlayers);
 
         // start the dealer thread
-        ThreadLogger dealerThread = new ThreadLogger(dealer, "dealer", logger);
+        ThreadLogger dealerThread = new ThreadLogger(env.threads.measure(dealer, "dealer"), "dealer", logger);
         dealerThread.startWithLog();
 
         try {
             // shutdown stuff
             dealerThread.joinWithLog();
+            if (xButtonPressed)
+                logger.info(String.format("the game stopped %.1fms after the exit button was pressed.",
+                        dealer.shutdownNanos() / 1_000_000.0));
             if (!xButtonPressed && config.endGamePauseMillies > 0) Thread.sleep(config.endGamePauseMillies);
         } catch (InterruptedException ignored) {
         } finally {
             logger.severe("thanks for playing... it was fun!");
             System.out.println("Thanks for playing... it was fun!");
             ThreadLogger.logStop(logger, Thread.currentThread().getName());
+            logger.info(env.threads.usageSummary());
+            env.close();
             if (!xButtonPressed) env.ui.dispose();
-            for (Handler h : logger.getHandlers()) h.flush();
+            for (Handler h : logger.getHandlers()) h.close(); // writes out the records still waiting in the log buffer
         }
     }
 
@@ -98,8 +107,8 @@ public class Main {
 
         java.util.logging.Logger logger = java.util.logging.Logger.getLogger("SetGameLogger");
         logger.setUseParentHandlers(false);
-        logger.addHandler(handler);
-        setLoggerLevelAndFormat(logger, Level.ALL, "[%1$tT.%1$tL] [%2$-7s] %3$s%n");
+        logger.addHandler(new AsyncLogHandler(handler)); // the file is written on a background thread
+        setLoggerLevelAndFormat(logger, Level.INFO, "[%1$tT.%1$tL] [%2$-7s] %3$s%n");
 
         return logger;
     }
@@ -111,10 +120,41 @@ public class Main {
             @Override
             public synchronized String format(LogRecord lr) {
                 return String.format(format, new Date(lr.getMillis()),
-                        lr.getLevel().getLocalizedName(), lr.getMessage()
+                        lr.getLevel().getLocalizedName(), formatParameters(lr)
                 );
             }
         }));
         logger.setLevel(level);
     }
+
+    /**
+     * Replaces the {0}, {1}... placeholders in the message of a log record with its parameters.
+     * Unlike MessageFormat, numbers are written as is (no digit grouping), so the log lines stay easy to parse.
+     *
+     * @param lr - the log record.
+     * @return - the formatted message.
+     */
+    static String formatParameters(LogRecord lr) {
+        String message = lr.getMessage();
+        Object[] parameters = lr.getParameters();
+        if (message == null || parameters == null || parameters.length == 0)
+            return message;
+        StringBuilder sb = new StringBuilder(message.length() + 16 * parameters.length);
+        for (int i = 0; i < message.length(); i++) {
+            char c = message.charAt(i);
+            sb.append(c);
+            if (c != '{')
+                continue;
+            int index = 0;
+            int end = i + 1;
+            while (end < message.length() && end - i <= 9 && Character.isDigit(message.charAt(end))) // no overflow
+                index = index * 10 + message.charAt(end++) - '0';
+            if (end > i + 1 && end < message.length() && message.charAt(end) == '}' && index < parameters.length) {
+                sb.setLength(sb.length() - 1); // the '{'
+                sb.append(parameters[index]);
+                i = end;
+            }
+        }
+        return sb.toString();
+    }
 }
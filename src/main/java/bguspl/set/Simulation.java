@@ -0,0 +1,204 @@
+package bguspl.set;
+
+import bguspl.set.ex.Dealer;
+import bguspl.set.ex.Player;
+import bguspl.set.ex.PlayerStats;
+import bguspl.set.ex.Table;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.ConsoleHandler;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Plays complete games with computer players only, on a virtual clock and without a display, as fast as the game
+ * threads can go. Reports the statistics of each game and the number of games per second, for evaluating rule and
+ * configuration changes. Each game is played with its own seed (the configured seed plus the game number), so any game
+ * can be played again.
+ * <p>
+ * By default the game threads run in parallel on a VirtualClock, which is fast but not deterministic: the same seed can
+ * play different games. In lockstep mode the threads run one at a time on a LockstepClock, so the same seed always
+ * plays the same game. In replay mode every game is played in lockstep and recorded, then replayed from the recorded
+ * key presses with the same seed, and the two games are checked to be identical.
+ * <p>
+ * Usage: Simulation [games] [max game seconds] [fast|lockstep|replay] (the game settings are read from
+ * config.properties).
+ */
+public class Simulation {
+
+    private static final String CONFIG_FILE = "config.properties";
+    private static final int DEFAULT_GAMES = 100;
+    private static final long DEFAULT_MAX_GAME_SECONDS = 3600;
+
+    /**
+     * The statistics of a single game.
+     */
+    static class GameResult {
+        final long virtualMillis;
+        final long realNanos;
+        final boolean timedOut;
+        final int[] winners;
+        final PlayerStats.Snapshot[] players;
+
+        GameResult(long virtualMillis, long realNanos, boolean timedOut, int[] winners, PlayerStats.Snapshot[] players) {
+            this.virtualMillis = virtualMillis;
+            this.realNanos = realNanos;
+            this.timedOut = timedOut;
+            this.winners = winners;
+            this.players = players;
+        }
+
+        int sets() {
+            return Arrays.stream(players).mapToInt(p -> p.score).sum();
+        }
+
+        long penalties() {
+            return Arrays.stream(players).mapToLong(p -> p.penalties).sum();
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%ds virtual in %.1fms%s, scores %s, penalties %s, winners %s", virtualMillis / 1000,
+                    realNanos / 1_000_000.0, timedOut ? " (timed out)" : "",
+                    Arrays.toString(Arrays.stream(players).mapToInt(p -> p.score).toArray()),
+                    Arrays.toString(Arrays.stream(players).mapToLong(p -> p.penalties).toArray()),
+                    Arrays.toString(winners));
+        }
+    }
+
+    /**
+     * @return - the game settings from the configuration file, changed for a simulation: computer players only and no
+     * hints (the input rate limit goes by the simulated clock, so it is kept).
+     */
+    static Properties simulationProperties(Logger logger) {
+        Properties properties = new Properties();
+        try (InputStream in = Files.exists(Paths.get(CONFIG_FILE)) ? Files.newInputStream(Paths.get(CONFIG_FILE))
+                : Simulation.class.getClassLoader().getResourceAsStream(CONFIG_FILE)) {
+            if (in != null) properties.load(in);
+        } catch (IOException e) {
+            logger.severe("cannot read " + CONFIG_FILE + ", using the default configuration: " + e.getMessage());
+        }
+        int players = Integer.parseInt(properties.getProperty("HumanPlayers", "2"))
+                + Integer.parseInt(properties.getProperty("ComputerPlayers", "0"));
+        properties.setProperty("HumanPlayers", "0");
+        properties.setProperty("ComputerPlayers", Integer.toString(Math.max(1, players)));
+        properties.setProperty("Hints", "False");
+        properties.setProperty("LogLevel", "SEVERE");
+        return properties;
+    }
+
+    /**
+     * Plays a single game on a simulated clock, with the journal and snapshot files of the configuration.
+     */
+    static GameResult playGame(Logger logger, Config config, Util util, boolean lockstep, long maxGameMillis,
+                               GameRecording recording) throws InterruptedException {
+        return playGame(logger, config, util, lockstep, maxGameMillis, recording, null);
+    }
+
+    /**
+     * Plays a single game on a simulated clock.
+     *
+     * @param lockstep      - true to run the game threads one at a time (a deterministic game).
+     * @param maxGameMillis - the virtual time after which the game is stopped.
+     * @param recording     - records (or replays) the game, null for neither.
+     * @param game          - the name the game's journal and snapshot files are numbered with (see
+     *                      GameJournal.fileOfGame), null for the files of the configuration.
+     * @return - the statistics of the game.
+     * @throws InterruptedException - if interrupted while waiting for the game to end.
+     */
+    static GameResult playGame(Logger logger, Config config, Util util, boolean lockstep, long maxGameMillis,
+                               GameRecording recording, String game) throws InterruptedException {
+        Clock clock = lockstep ? new LockstepClock() : new VirtualClock();
+        UserInterfaceHeadless ui = new UserInterfaceHeadless(logger, config);
+        Env env = game == null ? new Env(logger, config, ui, util, clock, recording)
+                : new Env(logger, config, ui, util, clock, recording, GameJournal.fileOfGame(config.journalFile, game),
+                GameJournal.fileOfGame(config.snapshotFile, game)); // each game (and replay) its own files
+        Player[] players = new Player[config.players];
+        Table table = new Table(env);
+        Dealer dealer = new Dealer(env, table, players);
+        for (int i = 0; i < players.length; i++)
+            players[i] = new Player(env, dealer, table, i, false);
+
+        long start = System.nanoTime();
+        boolean timedOut = false;
+        try {
+            Thread dealerThread = env.threads.start(dealer, "dealer");
+            while (dealerThread.isAlive()) {
+                dealerThread.join(10);
+                if (!timedOut && clock.millis() > maxGameMillis) {
+                    timedOut = true;
+                    dealer.terminate();
+                }
+            }
+        } finally {
+            env.close();
+        }
+        long realNanos = System.nanoTime() - start;
+        ui.dispose();
+
+        PlayerStats.Snapshot[] stats = new PlayerStats.Snapshot[players.length];
+        for (int i = 0; i < players.length; i++)
+            stats[i] = players[i].stats().snapshot();
+        return new GameResult(clock.millis(), realNanos, timedOut, ui.winners(), stats);
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        int games = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_GAMES;
+        long maxGameMillis = TimeUnit.SECONDS.toMillis(args.length > 1 ? Long.parseLong(args[1]) : DEFAULT_MAX_GAME_SECONDS);
+        String mode = args.length > 2 ? args[2].toLowerCase() : "fast";
+        boolean replay = mode.equals("replay");
+        boolean lockstep = replay || mode.equals("lockstep");
+
+        Logger logger = Logger.getLogger("SetGameSimulation");
+        logger.setUseParentHandlers(false);
+        ConsoleHandler handler = new ConsoleHandler();
+        handler.setLevel(Level.SEVERE);
+        logger.addHandler(handler);
+        Properties properties = simulationProperties(logger);
+        Config config = new Config(logger, properties);
+
+        System.out.println("simulating " + games + " games of " + config.players + " " + config.computerSkill
+                + " computer players, seed " + config.seed + (lockstep ? ", in lockstep" : "")
+                + (replay ? ", replaying each game" : ""));
+        long start = System.nanoTime();
+        long virtualMillis = 0, sets = 0, penalties = 0, timeouts = 0, identical = 0;
+        long[] wins = new long[config.players];
+        for (int game = 1; game <= games; game++) {
+            properties.setProperty("Seed", Long.toString(config.seed + game));
+            Config gameConfig = new Config(logger, properties);
+            GameRecording recording = replay ? GameRecording.record() : null;
+            GameResult result = playGame(logger, gameConfig, new UtilImpl(gameConfig), lockstep, maxGameMillis,
+                    recording, Integer.toString(game));
+            System.out.println("game " + game + " (seed " + gameConfig.seed + "): " + result);
+            if (replay) {
+                GameRecording again = GameRecording.replay(recording);
+                playGame(logger, gameConfig, new UtilImpl(gameConfig), true, maxGameMillis, again, game + "-replay");
+                boolean same = again.fingerprint() == recording.fingerprint();
+                if (same) identical++;
+                System.out.println("  replay of " + recording.inputs().size() + " key presses: "
+                        + (same ? "identical" : "diverged (" + again.events() + " events, recorded " + recording.events() + ")"));
+            }
+            virtualMillis += result.virtualMillis;
+            sets += result.sets();
+            penalties += result.penalties();
+            if (result.timedOut) timeouts++;
+            if (result.winners != null)
+                for (int winner : result.winners) wins[winner]++;
+        }
+        double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+
+        System.out.println(String.format("%d games in %.2fs: %.1f games/s, %.0fx faster than the wall clock",
+                games, seconds, games / seconds, virtualMillis / 1000.0 / seconds));
+        System.out.println(String.format("per game: %.1fs virtual, %.1f sets, %.1f penalties, %d timed out",
+                virtualMillis / 1000.0 / games, (double) sets / games, (double) penalties / games, timeouts));
+        System.out.println("wins per player: " + Arrays.toString(wins));
+        if (replay)
+            System.out.println("identical replays: " + identical + " of " + games);
+    }
+}
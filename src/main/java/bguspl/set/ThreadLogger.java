@@ -1,16 +1,146 @@
 package bguspl.set;
 
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadInfo;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
 import java.util.logging.Logger;
 
 public class ThreadLogger extends Thread {
 
+    /**
+     * A thread that was on a core for at least this share of its lifetime is marked busy in the usage summary (a
+     * game thread spends most of its time waiting, one that does not is likely spinning).
+     */
+    public static final double BUSY_CPU_SHARE = 0.5;
+
+    private static final ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+
     final Logger logger;
 
+    /**
+     * The resources a thread used over its lifetime, or so far if it is still running (-1 where the JVM does not
+     * measure it, e.g. for virtual threads).
+     */
+    public static class Usage {
+        public final String name;
+        public final boolean running;
+        public final long wallNanos;
+        public final long cpuNanos;
+        public final long userNanos;
+        public final long blockedCount;
+        public final long waitedCount;
+        public final long allocatedBytes;
+
+        Usage(String name, boolean running, long wallNanos, long cpuNanos, long userNanos, long blockedCount,
+              long waitedCount, long allocatedBytes) {
+            this.name = name;
+            this.running = running;
+            this.wallNanos = wallNanos;
+            this.cpuNanos = cpuNanos;
+            this.userNanos = userNanos;
+            this.blockedCount = blockedCount;
+            this.waitedCount = waitedCount;
+            this.allocatedBytes = allocatedBytes;
+        }
+
+        /**
+         * @return - the share of the thread's lifetime it was on a core (0 if not measured).
+         */
+        public double cpuShare() {
+            return cpuNanos <= 0 || wallNanos <= 0 ? 0 : (double) cpuNanos / wallNanos;
+        }
+
+        public boolean isBusy() {
+            return cpuShare() >= BUSY_CPU_SHARE;
+        }
+    }
+
     public ThreadLogger(Runnable target, String name, Logger logger) {
         super(target, name);
         this.logger = logger;
     }
 
+    /**
+     * Measures the current thread (at its end, or at any point of its life).
+     *
+     * @param name      - the name of the thread.
+     * @param wallNanos - the time since the thread started.
+     */
+    static Usage measureCurrent(String name, long wallNanos) {
+        long cpu = -1, user = -1;
+        try {
+            if (threadBean.isCurrentThreadCpuTimeSupported() && threadBean.isThreadCpuTimeEnabled()) {
+                cpu = threadBean.getCurrentThreadCpuTime();
+                user = threadBean.getCurrentThreadUserTime();
+            }
+        } catch (UnsupportedOperationException | SecurityException ignored) { // keep what was measured
+        }
+        return measure(Thread.currentThread().getId(), name, false, wallNanos, cpu, user);
+    }
+
+    /**
+     * Measures another thread, that is still running, by its id.
+     *
+     * @param thread    - the thread.
+     * @param wallNanos - the time since the thread started.
+     */
+    static Usage sample(Thread thread, long wallNanos) {
+        long id = thread.getId();
+        long cpu = -1, user = -1;
+        try {
+            if (threadBean.isThreadCpuTimeSupported() && threadBean.isThreadCpuTimeEnabled()) {
+                cpu = threadBean.getThreadCpuTime(id);
+                user = threadBean.getThreadUserTime(id);
+            }
+        } catch (UnsupportedOperationException | SecurityException ignored) {
+        }
+        return measure(id, thread.getName(), thread.isAlive(), wallNanos, cpu, user);
+    }
+
+    private static Usage measure(long id, String name, boolean running, long wallNanos, long cpu, long user) {
+        long blocked = -1, waited = -1, allocated = -1;
+        try {
+            ThreadInfo info = threadBean.getThreadInfo(id);
+            if (info != null) { // null for virtual threads (and for threads that ended)
+                blocked = info.getBlockedCount();
+                waited = info.getWaitedCount();
+            }
+            if (threadBean instanceof com.sun.management.ThreadMXBean) {
+                com.sun.management.ThreadMXBean sunBean = (com.sun.management.ThreadMXBean) threadBean;
+                if (sunBean.isThreadAllocatedMemorySupported() && sunBean.isThreadAllocatedMemoryEnabled())
+                    allocated = sunBean.getThreadAllocatedBytes(id);
+            }
+        } catch (UnsupportedOperationException | SecurityException ignored) {
+        }
+        return new Usage(name, running, wallNanos, cpu, user, blocked, waited, allocated);
+    }
+
+    /**
+     * @param usages - the resources used by the threads of a game.
+     * @return - a table of the resources, the busiest first, with the busy threads marked.
+     */
+    static String summary(List<Usage> usages) {
+        List<Usage> list = new ArrayList<>(usages);
+        list.sort(Comparator.comparingLong((Usage u) -> u.cpuNanos).reversed());
+        StringBuilder sb = new StringBuilder(String.format("thread usage (%d threads, busy = on a core for %.0f%% or more of its life):%n",
+                list.size(), BUSY_CPU_SHARE * 100));
+        sb.append(String.format("%-16s %10s %10s %10s %6s %9s %9s %12s%n", "thread", "wall ms", "cpu ms", "user ms",
+                "cpu%", "blocked", "waited", "allocated"));
+        for (Usage u : list)
+            sb.append(String.format("%-16s %10.1f %10s %10s %6s %9s %9s %12s%s%s%n", u.name, u.wallNanos / 1e6,
+                    u.cpuNanos < 0 ? "-" : String.format("%.1f", u.cpuNanos / 1e6),
+                    u.userNanos < 0 ? "-" : String.format("%.1f", u.userNanos / 1e6),
+                    u.cpuNanos < 0 ? "-" : String.format("%.0f%%", u.cpuShare() * 100),
+                    u.blockedCount < 0 ? "-" : Long.toString(u.blockedCount),
+                    u.waitedCount < 0 ? "-" : Long.toString(u.waitedCount),
+                    u.allocatedBytes < 0 ? "-" : String.format("%.1fM", u.allocatedBytes / 1e6),
+                    u.running ? "  (still running)" : "", u.isBusy() ? "  << busy" : ""));
+        return sb.toString();
+    }
+
     public void startWithLog() {
         logStart(logger, getName());
         super.start();
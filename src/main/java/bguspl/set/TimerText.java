@@ -0,0 +1,106 @@
+package bguspl.set;
+
+/**
+ * Builds the text of the timer label into a reusable char buffer (no format strings and no garbage on every update)
+ * and tells whether the text changed, so the label is only updated when the displayed text is different.
+ * Not thread safe: used on the Event Dispatch Thread only.
+ */
+class TimerText {
+
+    private static final char[] COUNTDOWN = "Remaining Time: ".toCharArray();
+    private static final char[] ELAPSED = "Elapsed time: ".toCharArray();
+    private static final int MAX_LENGTH = 64;
+
+    /**
+     * The text being built and the text currently shown.
+     */
+    private char[] next = new char[MAX_LENGTH];
+    private char[] shown = new char[MAX_LENGTH];
+    private int nextLength = 0;
+    private int shownLength = -1;
+    private String text = "";
+
+    /**
+     * Builds the countdown text: whole seconds, or seconds with hundredths when warn is true.
+     *
+     * @return - true iff the text is different from the current text.
+     */
+    boolean countdown(long millies, boolean warn) {
+        nextLength = 0;
+        append(COUNTDOWN);
+        if (!warn) {
+            append(millies / 1000L);
+            return update();
+        }
+        if (millies < 0) {
+            next[nextLength++] = '-';
+            millies = -millies;
+        }
+        long hundredths = (millies + 5) / 10; // rounded to the nearest hundredth
+        append(hundredths / 100);
+        next[nextLength++] = '.';
+        next[nextLength++] = (char) ('0' + hundredths / 10 % 10);
+        next[nextLength++] = (char) ('0' + hundredths % 10);
+        return update();
+    }
+
+    /**
+     * Builds the elapsed time text (whole seconds).
+     *
+     * @return - true iff the text is different from the current text.
+     */
+    boolean elapsed(long millies) {
+        nextLength = 0;
+        append(ELAPSED);
+        append(millies / 1000);
+        return update();
+    }
+
+    /**
+     * @return - the current text.
+     */
+    String text() {
+        return text;
+    }
+
+    private void append(char[] chars) {
+        System.arraycopy(chars, 0, next, nextLength, chars.length);
+        nextLength += chars.length;
+    }
+
+    private void append(long value) {
+        if (value < 0) {
+            next[nextLength++] = '-';
+            value = -value;
+        }
+        int start = nextLength;
+        do {
+            next[nextLength++] = (char) ('0' + value % 10);
+            value /= 10;
+        } while (value != 0);
+        for (int i = start, j = nextLength - 1; i < j; i++, j--) { // the digits were written backwards
+            char c = next[i];
+            next[i] = next[j];
+            next[j] = c;
+        }
+    }
+
+    /**
+     * Makes the built text the current text, if it is different.
+     */
+    private boolean update() {
+        if (nextLength == shownLength) {
+            int i = 0;
+            while (i < nextLength && next[i] == shown[i])
+                i++;
+            if (i == nextLength)
+                return false;
+        }
+        char[] swap = shown;
+        shown = next;
+        next = swap;
+        shownLength = nextLength;
+        text = new String(shown, 0, shownLength);
+        return true;
+    }
+}
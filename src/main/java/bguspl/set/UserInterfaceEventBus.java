@@ -0,0 +1,248 @@
+package bguspl.set;
+
+import javax.swing.*;
+import java.awt.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Sits between the game threads and the Swing user interface.
+ * The game threads only publish events (never blocking and never touching Swing components). The events are applied
+ * on the Event Dispatch Thread in batches, at most once per frame. The card and token events are applied in order;
+ * for the timer, the freeze times and the scores only the latest value matters, so values that were replaced before
+ * the next frame are never drawn.
+ */
+public class UserInterfaceEventBus implements UserInterface {
+
+    private static final int FRAME_MILLIS = 16;
+
+    /**
+     * Marks a value that was not changed since the last frame.
+     */
+    private static final long NONE = Long.MIN_VALUE;
+
+    private static final int PLACE_CARD = 0;
+    private static final int REMOVE_CARD = 1;
+    private static final int PLACE_TOKEN = 2;
+    private static final int REMOVE_TOKENS = 3;
+    private static final int REMOVE_SLOT_TOKENS = 4;
+    private static final int REMOVE_TOKEN = 5;
+    private static final int ANNOUNCE_WINNER = 6;
+
+    /**
+     * An event that has to be applied in order.
+     */
+    private static final class Event {
+        final int type;
+        final int first;
+        final int second;
+        final int[] players;
+
+        Event(int type, int first, int second, int[] players) {
+            this.type = type;
+            this.first = first;
+            this.second = second;
+            this.players = players;
+        }
+    }
+
+    private final UserInterface ui;
+    private final ConcurrentLinkedQueue<Event> events = new ConcurrentLinkedQueue<>();
+
+    /**
+     * The latest countdown (millies << 1 | warn) and elapsed time.
+     */
+    private final AtomicLong countdown = new AtomicLong(NONE);
+    private final AtomicLong elapsed = new AtomicLong(NONE);
+
+    /**
+     * The latest freeze time and score of each player.
+     */
+    private final AtomicLongArray freezes;
+    private final AtomicLongArray scores;
+
+    /**
+     * Fires on the Event Dispatch Thread once per frame while there are events to apply.
+     */
+    private final Timer timer;
+    private final AtomicBoolean timerRunning = new AtomicBoolean(false);
+
+    /**
+     * @param ui      - the user interface the events are applied to (on the Event Dispatch Thread).
+     * @param players - the number of players.
+     */
+    public UserInterfaceEventBus(UserInterface ui, int players) {
+        this.ui = ui;
+        freezes = new AtomicLongArray(players);
+        scores = new AtomicLongArray(players);
+        for (int i = 0; i < players; i++) {
+            freezes.set(i, NONE);
+            scores.set(i, NONE);
+        }
+        timer = new Timer(FRAME_MILLIS, e -> onFrame());
+    }
+
+    private void publish(int type, int first, int second, int[] players) {
+        events.add(new Event(type, first, second, players));
+        wakeUp();
+    }
+
+    /**
+     * Makes sure the frame timer is running (called after every event published).
+     */
+    private void wakeUp() {
+        if (timerRunning.compareAndSet(false, true))
+            timer.start();
+    }
+
+    /**
+     * Applies a batch of events. Stops the timer if there was nothing to apply.
+     */
+    private void onFrame() {
+        if (applyPending())
+            return;
+        timer.stop();
+        timerRunning.set(false);
+        if (hasPending() && timerRunning.compareAndSet(false, true)) // published while we were stopping
+            timer.start();
+    }
+
+    private boolean hasPending() {
+        if (!events.isEmpty() || countdown.get() != NONE || elapsed.get() != NONE)
+            return true;
+        for (int i = 0; i < scores.length(); i++)
+            if (freezes.get(i) != NONE || scores.get(i) != NONE)
+                return true;
+        return false;
+    }
+
+    /**
+     * Applies all the events published so far (on the Event Dispatch Thread).
+     *
+     * @return - true iff there was anything to apply.
+     */
+    private boolean applyPending() {
+        boolean applied = false;
+        for (Event e; (e = events.poll()) != null; applied = true) {
+            switch (e.type) {
+                case PLACE_CARD:
+                    ui.placeCard(e.first, e.second);
+                    break;
+                case REMOVE_CARD:
+                    ui.removeCard(e.first);
+                    break;
+                case PLACE_TOKEN:
+                    ui.placeToken(e.first, e.second);
+                    break;
+                case REMOVE_TOKENS:
+                    ui.removeTokens();
+                    break;
+                case REMOVE_SLOT_TOKENS:
+                    ui.removeTokens(e.first);
+                    break;
+                case REMOVE_TOKEN:
+                    ui.removeToken(e.first, e.second);
+                    break;
+                case ANNOUNCE_WINNER:
+                    ui.announceWinner(e.players);
+                    break;
+            }
+        }
+        for (int player = 0; player < scores.length(); player++) {
+            long freeze = freezes.getAndSet(player, NONE);
+            if (freeze != NONE) {
+                ui.setFreeze(player, freeze);
+                applied = true;
+            }
+            long score = scores.getAndSet(player, NONE);
+            if (score != NONE) {
+                ui.setScore(player, (int) score);
+                applied = true;
+            }
+        }
+        long time = countdown.getAndSet(NONE);
+        if (time != NONE) {
+            ui.setCountdown(time >> 1, (time & 1) != 0);
+            applied = true;
+        }
+        time = elapsed.getAndSet(NONE);
+        if (time != NONE) {
+            ui.setElapsed(time);
+            applied = true;
+        }
+        return applied;
+    }
+
+    @Override
+    public void placeCard(int card, int slot) {
+        publish(PLACE_CARD, card, slot, null);
+    }
+
+    @Override
+    public void removeCard(int slot) {
+        publish(REMOVE_CARD, slot, 0, null);
+    }
+
+    @Override
+    public void placeToken(int player, int slot) {
+        publish(PLACE_TOKEN, player, slot, null);
+    }
+
+    @Override
+    public void removeTokens() {
+        publish(REMOVE_TOKENS, 0, 0, null);
+    }
+
+    @Override
+    public void removeTokens(int slot) {
+        publish(REMOVE_SLOT_TOKENS, slot, 0, null);
+    }
+
+    @Override
+    public void removeToken(int player, int slot) {
+        publish(REMOVE_TOKEN, player, slot, null);
+    }
+
+    @Override
+    public void setCountdown(long millies, boolean warn) {
+        countdown.set(millies << 1 | (warn ? 1 : 0));
+        wakeUp();
+    }
+
+    @Override
+    public void setElapsed(long millies) {
+        elapsed.set(millies);
+        wakeUp();
+    }
+
+    @Override
+    public void setFreeze(int player, long millies) {
+        freezes.set(player, millies);
+        wakeUp();
+    }
+
+    @Override
+    public void setScore(int player, int score) {
+        scores.set(player, score);
+        wakeUp();
+    }
+
+    @Override
+    public void announceWinner(int[] players) {
+        publish(ANNOUNCE_WINNER, 0, 0, players.clone());
+    }
+
+    /**
+     * Applies whatever is still waiting and closes the window (on the Event Dispatch Thread).
+     */
+    @Override
+    public void dispose() {
+        EventQueue.invokeLater(() -> {
+            timer.stop();
+            applyPending();
+            ui.dispose();
+        });
+    }
+}
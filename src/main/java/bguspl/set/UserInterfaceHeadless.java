@@ -0,0 +1,258 @@
+package bguspl.set;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Logger;
+
+/**
+ * A user interface without a display, for simulations and test runs on machines without a screen.
+ * Never touches AWT. Counts the calls of each kind, measures the time between consecutive calls of the same kind, and
+ * keeps the current board, tokens, scores, freeze times, timer and winners in memory so they can be checked.
+ * Safe to call from any thread.
+ */
+public class UserInterfaceHeadless implements UserInterface {
+
+    /**
+     * The kinds of user interface calls.
+     */
+    public enum Call {
+        PLACE_CARD, REMOVE_CARD, PLACE_TOKEN, REMOVE_TOKENS, REMOVE_SLOT_TOKENS, REMOVE_TOKEN,
+        COUNTDOWN, ELAPSED, FREEZE, SCORE, ANNOUNCE_WINNER, DISPOSE
+    }
+
+    private static final int NO_CARD = -1;
+
+    private final Logger logger;
+    private final int players;
+    private final int tableSize;
+
+    /**
+     * The number of calls of each kind.
+     */
+    private final LongAdder[] counts = new LongAdder[Call.values().length];
+
+    /**
+     * For each kind of call: the time of the last call, the total and the longest time between consecutive calls (ns).
+     */
+    private final AtomicLongArray lastNanos = new AtomicLongArray(Call.values().length);
+    private final LongAdder[] gapNanos = new LongAdder[Call.values().length];
+    private final LongAccumulator[] maxGapNanos = new LongAccumulator[Call.values().length];
+
+    /**
+     * The card in each slot (NO_CARD if the slot is empty).
+     */
+    private final AtomicIntegerArray cards;
+
+    /**
+     * 1 at [player * tableSize + slot] if the player has a token on the slot.
+     */
+    private final AtomicIntegerArray tokens;
+
+    private final AtomicIntegerArray scores;
+    private final AtomicLongArray freezes;
+
+    private volatile long countdown;
+    private volatile boolean warn;
+    private volatile long elapsed;
+    private volatile int[] winners;
+    private volatile boolean disposed;
+
+    public UserInterfaceHeadless(Logger logger, Config config) {
+        this.logger = logger;
+        this.players = config.players;
+        this.tableSize = config.tableSize;
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = new LongAdder();
+            gapNanos[i] = new LongAdder();
+            maxGapNanos[i] = new LongAccumulator(Math::max, 0);
+        }
+        cards = new AtomicIntegerArray(tableSize);
+        for (int i = 0; i < tableSize; i++)
+            cards.set(i, NO_CARD);
+        tokens = new AtomicIntegerArray(players * tableSize);
+        scores = new AtomicIntegerArray(players);
+        freezes = new AtomicLongArray(players);
+    }
+
+    /**
+     * Counts a call and the time since the previous call of the same kind.
+     */
+    private void record(Call call) {
+        int i = call.ordinal();
+        long now = System.nanoTime();
+        long last = lastNanos.getAndSet(i, now);
+        counts[i].increment();
+        if (last != 0) {
+            gapNanos[i].add(now - last);
+            maxGapNanos[i].accumulate(now - last);
+        }
+    }
+
+    @Override
+    public void placeCard(int card, int slot) {
+        record(Call.PLACE_CARD);
+        cards.set(slot, card);
+    }
+
+    @Override
+    public void removeCard(int slot) {
+        record(Call.REMOVE_CARD);
+        cards.set(slot, NO_CARD);
+    }
+
+    @Override
+    public void placeToken(int player, int slot) {
+        record(Call.PLACE_TOKEN);
+        tokens.set(player * tableSize + slot, 1);
+    }
+
+    @Override
+    public void removeTokens() {
+        record(Call.REMOVE_TOKENS);
+        for (int i = 0; i < tokens.length(); i++)
+            tokens.set(i, 0);
+    }
+
+    @Override
+    public void removeTokens(int slot) {
+        record(Call.REMOVE_SLOT_TOKENS);
+        for (int player = 0; player < players; player++)
+            tokens.set(player * tableSize + slot, 0);
+    }
+
+    @Override
+    public void removeToken(int player, int slot) {
+        record(Call.REMOVE_TOKEN);
+        tokens.set(player * tableSize + slot, 0);
+    }
+
+    @Override
+    public void setCountdown(long millies, boolean warn) {
+        record(Call.COUNTDOWN);
+        this.warn = warn;
+        countdown = millies;
+    }
+
+    @Override
+    public void setElapsed(long millies) {
+        record(Call.ELAPSED);
+        elapsed = millies;
+    }
+
+    @Override
+    public void setFreeze(int player, long millies) {
+        record(Call.FREEZE);
+        freezes.set(player, millies);
+    }
+
+    @Override
+    public void setScore(int player, int score) {
+        record(Call.SCORE);
+        scores.set(player, score);
+    }
+
+    @Override
+    public void announceWinner(int[] players) {
+        record(Call.ANNOUNCE_WINNER);
+        winners = players.clone();
+    }
+
+    @Override
+    public void dispose() {
+        record(Call.DISPOSE);
+        disposed = true;
+        logger.info(summary());
+    }
+
+    /**
+     * @return - the card in the slot, or -1 if the slot is empty.
+     */
+    public int card(int slot) {
+        return cards.get(slot);
+    }
+
+    /**
+     * @return - true iff the player has a token on the slot.
+     */
+    public boolean hasToken(int player, int slot) {
+        return tokens.get(player * tableSize + slot) == 1;
+    }
+
+    public int score(int player) {
+        return scores.get(player);
+    }
+
+    public long freeze(int player) {
+        return freezes.get(player);
+    }
+
+    public long countdown() {
+        return countdown;
+    }
+
+    public boolean warn() {
+        return warn;
+    }
+
+    public long elapsed() {
+        return elapsed;
+    }
+
+    /**
+     * @return - the announced winners, or null if the winners were not announced yet.
+     */
+    public int[] winners() {
+        int[] winners = this.winners;
+        return winners == null ? null : winners.clone();
+    }
+
+    public boolean disposed() {
+        return disposed;
+    }
+
+    /**
+     * @return - the number of calls of the kind so far.
+     */
+    public long count(Call call) {
+        return counts[call.ordinal()].sum();
+    }
+
+    /**
+     * @return - the average time between consecutive calls of the kind (ms), or 0 if there were less than two.
+     */
+    public double averageGapMillis(Call call) {
+        long gaps = count(call) - 1;
+        return gaps <= 0 ? 0 : gapNanos[call.ordinal()].sum() / (gaps * 1_000_000.0);
+    }
+
+    /**
+     * @return - the longest time between consecutive calls of the kind (ms).
+     */
+    public double maxGapMillis(Call call) {
+        return maxGapNanos[call.ordinal()].get() / 1_000_000.0;
+    }
+
+    /**
+     * @return - the calls counts and timings, and the final scores (for the log).
+     */
+    public String summary() {
+        StringBuilder sb = new StringBuilder("headless user interface summary:");
+        for (Call call : Call.values()) {
+            long count = count(call);
+            if (count == 0) continue;
+            sb.append(System.lineSeparator()).append(String.format("  %-18s calls: %8d  avg gap: %9.3fms  max gap: %9.3fms",
+                    call, count, averageGapMillis(call), maxGapMillis(call)));
+        }
+        int[] scores = new int[players];
+        for (int player = 0; player < players; player++)
+            scores[player] = score(player);
+        sb.append(System.lineSeparator()).append("  scores: ").append(Arrays.toString(scores));
+        int[] winners = this.winners;
+        if (winners != null)
+            sb.append(" winners: ").append(Arrays.toString(winners));
+        return sb.toString();
+    }
+}
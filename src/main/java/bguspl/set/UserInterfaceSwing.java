@@ -4,10 +4,12 @@ import bguspl.set.ex.Player;
 
 import javax.swing.*;
 import java.awt.*;
-import java.io.FileNotFoundException;
-import java.net.URL;
 import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
 
@@ -23,6 +25,12 @@ public class UserInterfaceSwing extends JFrame implements UserInterface {
     private final PlayersPanel playersPanel;
     private final WinnerPanel winnerPanel;
     private final Config config;
+    private final Logger logger;
+
+    /**
+     * When the user interface was created (to measure the time to the first frame).
+     */
+    private final long createdNanos = System.nanoTime();
 
     static String intInBaseToPaddedString(int n, int padding, int base) {
         return format("%" + padding + "s", Integer.toString(n, base)).replace(' ', '0');
@@ -31,6 +39,7 @@ public class UserInterfaceSwing extends JFrame implements UserInterface {
     public UserInterfaceSwing(Logger logger, Config config, Player[] players) {
 
         this.config = config;
+        this.logger = logger;
         timerPanel = new TimerPanel();
         gamePanel = new GamePanel();
         playersPanel = new PlayersPanel();
@@ -72,13 +81,8 @@ public class UserInterfaceSwing extends JFrame implements UserInterface {
     private class TimerPanel extends JPanel {
 
         private final JLabel timerField;
-
-        private String generateTime(long millies, boolean warn) {
-            if (warn)
-                return format("Remaining Time: %.2f", (double) millies / 1000.0f);
-            else
-                return format("Remaining Time: %d", millies / 1000L);
-        }
+        private final TimerText timerText = new TimerText();
+        private boolean warning = false;
 
         private TimerPanel() {
             timerField = new JLabel(config.turnTimeoutMillis < 0 ? "PLAY" : "GET READY...");
@@ -91,46 +95,56 @@ public class UserInterfaceSwing extends JFrame implements UserInterface {
         }
 
         private void setCountdown(long millies, boolean warn) {
-            timerField.setText(generateTime(millies, warn));
-            timerField.setForeground(warn ? Color.RED : Color.BLACK);
+            if (timerText.countdown(millies, warn)) // only when the displayed text changes
+                timerField.setText(timerText.text());
+            if (warn != warning) {
+                warning = warn;
+                timerField.setForeground(warn ? Color.RED : Color.BLACK);
+            }
         }
 
         private void setElapsed(long millies) {
-            timerField.setText("Elapsed time: " + millies / 1000);
+            if (timerText.elapsed(millies))
+                timerField.setText(timerText.text());
         }
     }
 
     private class GamePanel extends JLayeredPane {
 
+        private static final int MAX_TOKEN_LABELS = 4096;
+
+        private final CardImages cards;
         private final Image emptyCard;
-        private final Image[] deck;
         private final Image[][] grid;
-        private final boolean[][][] playerTokens;
         private final JLabel[][] tokenText;
 
-        private Image loadImageResource(String filename) {
-            URL imageResource = getClass().getClassLoader().getResource(filename);
-            if (imageResource == null)
-                throw new RuntimeException(new FileNotFoundException(filename));
-            return new ImageIcon(imageResource).getImage();
+        /**
+         * The players that have a token on each slot, and the token text for each combination of players seen so far.
+         */
+        private final BitSet[] slotTokens;
+        private final Map<BitSet, String> tokenLabels = new HashMap<>();
+
+        /**
+         * Repaints only the rectangle of a single cell.
+         */
+        private void repaintCell(int row, int column) {
+            repaint(column * config.cellWidth, row * config.cellHeight, config.cellWidth, config.cellHeight);
         }
 
+        private boolean firstFramePainted = false;
+
         private GamePanel() {
 
             setPreferredSize(new Dimension(config.columns * config.cellWidth, config.rows * config.cellHeight));
 
-            // init deck and load all pictures from png files
-            assert config.featureSize < 10; // otherwise there will be naming conflicts
-
-            // load the image resources
-            deck = new Image[config.deckSize];
-            for (int i = 0; i < config.deckSize; ++i)
-                deck[i] = loadImageResource("cards/" + intInBaseToPaddedString(i, config.featureCount, config.featureSize) + ".png");
-            emptyCard = loadImageResource("cards/empty_card.png");
+            // the card images are loaded (or drawn) when first placed on the table
+            cards = new CardImages(logger, config);
+            emptyCard = cards.emptyCard();
 
             grid = new Image[config.rows][config.columns];
             tokenText = new JLabel[config.rows][config.columns];
-            playerTokens = new boolean[config.players][config.rows][config.columns];
+            slotTokens = new BitSet[config.tableSize];
+            Arrays.setAll(slotTokens, slot -> new BitSet(config.players));
             for (int row = 0; row < config.rows; row++) {
                 for (int column = 0; column < config.columns; column++) {
                     // init the cards on the table grid as empty cards
@@ -151,24 +165,25 @@ public class UserInterfaceSwing extends JFrame implements UserInterface {
         private void placeCard(int slot, int card) {
             int row = slot / config.columns;
             int column = slot % config.columns;
-            grid[row][column] = deck[card];
-            validate();
-            repaint();
+            Image image = cards.card(card);
+            if (grid[row][column] == image)
+                return;
+            grid[row][column] = image;
+            repaintCell(row, column);
         }
 
         private void removeCard(int slot) {
             int row = slot / config.columns;
             int column = slot % config.columns;
+            if (grid[row][column] == emptyCard)
+                return;
             grid[row][column] = emptyCard;
-            validate();
-            repaint();
+            repaintCell(row, column);
         }
 
         private void placeToken(int player, int slot) {
-            int row = slot / config.columns;
-            int column = slot % config.columns;
-            playerTokens[player][row][column] = true;
-            tokenText[row][column].setText(generatePlayersTokenText(row, column));
+            slotTokens[slot].set(player);
+            updateTokenText(slot);
         }
 
         private void removeTokens() {
@@ -177,38 +192,54 @@ public class UserInterfaceSwing extends JFrame implements UserInterface {
         }
 
         private void removeTokens(int slot) {
-            int row = slot / config.columns;
-            int column = slot % config.columns;
-            for (int player = 0; player < playerTokens.length; player++) {
-                playerTokens[player][row][column] = false;
-                tokenText[row][column].setText(generatePlayersTokenText(row, column));
-            }
+            slotTokens[slot].clear();
+            updateTokenText(slot);
         }
 
         private void removeToken(int player, int slot) {
-            int row = slot / config.columns;
-            int column = slot % config.columns;
-            playerTokens[player][row][column] = false;
-            tokenText[row][column].setText(generatePlayersTokenText(row, column));
+            slotTokens[slot].clear(player);
+            updateTokenText(slot);
+        }
+
+        private void updateTokenText(int slot) {
+            tokenText[slot / config.columns][slot % config.columns].setText(tokenLabel(slotTokens[slot]));
         }
 
-        private String generatePlayersTokenText(int row, int column) {
-            String text = "";
-            for (int player = 0; player < config.players; player++) {
-                if (playerTokens[player][row][column])
-                    text = text.concat(config.playerNames[player] + ", ");
+        /**
+         * @param players - the players that have a token on the slot.
+         * @return - the token text (the player names), built once for each combination of players.
+         */
+        private String tokenLabel(BitSet players) {
+            String label = tokenLabels.get(players);
+            if (label == null) {
+                StringJoiner names = new StringJoiner(", ");
+                players.stream().forEach(player -> names.add(config.playerNames[player]));
+                label = names.toString();
+                if (tokenLabels.size() >= MAX_TOKEN_LABELS)
+                    tokenLabels.clear();
+                tokenLabels.put((BitSet) players.clone(), label);
             }
-            if (text.length() < 2)
-                return "";
-            return text.substring(0, text.length() - 2);
+            return label;
         }
 
         @Override
         public void paintComponent(Graphics g) {
-            // draw card images
-            for (int row = 0; row < config.rows; row++)
-                for (int column = 0; column < config.columns; column++)
+            // draw the card images of the cells inside the dirty region only
+            Rectangle clip = g.getClipBounds();
+            if (clip == null)
+                clip = new Rectangle(0, 0, getWidth(), getHeight());
+            int firstRow = Math.max(0, clip.y / config.cellHeight);
+            int lastRow = Math.min(config.rows - 1, (clip.y + clip.height - 1) / config.cellHeight);
+            int firstColumn = Math.max(0, clip.x / config.cellWidth);
+            int lastColumn = Math.min(config.columns - 1, (clip.x + clip.width - 1) / config.cellWidth);
+            for (int row = firstRow; row <= lastRow; row++)
+                for (int column = firstColumn; column <= lastColumn; column++)
                     g.drawImage(grid[row][column], (column * config.cellWidth), (row * config.cellHeight), this);
+            if (!firstFramePainted) {
+                firstFramePainted = true;
+                logger.info("first frame painted " + (System.nanoTime() - createdNanos) / 1_000_000 + "ms after the user interface was created ("
+                        + cards.source() + ").");
+            }
         }
     }
 
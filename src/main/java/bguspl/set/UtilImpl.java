@@ -3,7 +3,7 @@ package bguspl.set;
 import java.util.Arrays;
 import java.util.LinkedList;
 import java.util.List;
-import java.util.concurrent.ThreadLocalRandom;
+import java.util.Random;
 import java.util.stream.IntStream;
 
 /**
@@ -13,8 +13,15 @@ public class UtilImpl implements Util {
 
     private final Config config;
 
+    /**
+     * The random numbers for the spins of each thread, seeded by the game seed and the thread name (so they do not
+     * depend on the order the threads first spin in).
+     */
+    private final ThreadLocal<Random> spinRandom;
+
     public UtilImpl(Config config) {
         this.config = config;
+        this.spinRandom = ThreadLocal.withInitial(() -> new Random(config.seed ^ Thread.currentThread().getName().hashCode()));
     }
 
     private void cardToFeatures(int card, int[] features) {
@@ -92,7 +99,7 @@ public class UtilImpl implements Util {
 
     public void spin() {
         if (config.randomSpinMax <= 0) return;
-        long cycles = ThreadLocalRandom.current().nextLong(config.randomSpinMin, config.randomSpinMax);
+        long cycles = config.randomSpinMin + (long) (spinRandom.get().nextDouble() * (config.randomSpinMax - config.randomSpinMin));
         for (int i = 0; i < cycles; ++i)
             Thread.yield();
     }
@@ -0,0 +1,216 @@
+package bguspl.set;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BooleanSupplier;
+
+/**
+ * A simulated clock for running games as fast as possible. The time does not pass by itself: it jumps to the earliest
+ * time a sleeping thread should wake up at once every game thread (every thread started by GameThreads) waits on the
+ * clock, either sleeping or waiting for a condition that does not hold (awaitUntil), or is done. A game thread that
+ * runs holds the time back, so a player taking a key press and claiming a set gets it done in no time.
+ * <p>
+ * The game threads tell the clock when they wait, so the time never moves on while a thread is still busy, however
+ * slow or loaded the machine: a thread counts as busy until it waits on the clock, and a waiting thread counts as busy
+ * again as soon as its wake up time came, its condition holds or it was interrupted through the clock. Unlike
+ * LockstepClock the threads run in parallel, so the game is not deterministic, but the time it takes is. The game
+ * threads must not block any other way than on the clock for longer than a moment (while they do, the time stands
+ * still).
+ */
+public class VirtualClock implements Clock {
+
+    /**
+     * How often threads waiting for a condition check it (the threads that change it signal them first, this is for
+     * the changes from outside the game, e.g. the game being stopped).
+     */
+    private static final long CONDITION_CHECK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    /**
+     * A thread waiting on the clock.
+     */
+    private final class Waiter {
+        final long wakeTime;
+        final BooleanSupplier condition;
+        boolean interrupted;
+
+        Waiter(long wakeTime, BooleanSupplier condition) {
+            this.wakeTime = wakeTime;
+            this.condition = condition;
+        }
+
+        boolean isReady() {
+            return wakeTime <= now || interrupted || condition != null && condition.getAsBoolean();
+        }
+    }
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /**
+     * Signaled whenever the time moves or a thread starts waiting or stops.
+     */
+    private final Condition changed = lock.newCondition();
+
+    /**
+     * The current time (written with the lock held).
+     */
+    private volatile long now;
+
+    /**
+     * The game threads started but not running yet, the game threads running, and the threads waiting on the clock
+     * (guarded by the lock).
+     */
+    private int starting;
+    private final Set<Thread> gameThreads = new HashSet<>();
+    private final Map<Thread, Waiter> waiting = new HashMap<>();
+
+    @Override
+    public long millis() {
+        return now;
+    }
+
+    @Override
+    public boolean isSimulated() {
+        return true;
+    }
+
+    @Override
+    public void sleep(long millis) throws InterruptedException {
+        if (Thread.interrupted())
+            throw new InterruptedException();
+        if (millis <= 0)
+            return;
+        wait(now + millis, null);
+    }
+
+    @Override
+    public void awaitUntil(BooleanSupplier condition) throws InterruptedException {
+        wait(Long.MAX_VALUE, condition);
+    }
+
+    /**
+     * Interrupts a thread, making it busy at once (the interrupt flag alone is not seen while a thread waits).
+     */
+    @Override
+    public void interrupt(Thread thread) {
+        lock.lock();
+        try {
+            Waiter waiter = waiting.get(thread);
+            if (waiter != null) {
+                waiter.interrupted = true;
+                changed.signalAll();
+            }
+            thread.interrupt(); // with the lock held, so the waiter cannot clear the flag before it is set
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Waits on the clock until the wake up time, until the condition holds or until interrupted.
+     */
+    private void wait(long wakeTime, BooleanSupplier condition) throws InterruptedException {
+        Thread thread = Thread.currentThread();
+        lock.lock();
+        try {
+            Waiter waiter = new Waiter(wakeTime, condition);
+            if (Thread.interrupted())
+                waiter.interrupted = true;
+            waiting.put(thread, waiter);
+            changed.signalAll(); // whatever this thread did may be what another thread waits for
+            try {
+                advance();
+                while (!waiter.isReady()) {
+                    try {
+                        changed.awaitNanos(CONDITION_CHECK_NANOS);
+                    } catch (InterruptedException e) { // interrupted from outside the game
+                        waiter.interrupted = true;
+                    }
+                    advance();
+                }
+            } finally {
+                waiting.remove(thread);
+                advance(); // a thread that is not a game thread no longer holds the time back
+            }
+            if (waiter.interrupted) {
+                Thread.interrupted();
+                throw new InterruptedException();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Moves the time on to the earliest wake up time while no thread is busy (called holding the lock).
+     */
+    private void advance() {
+        boolean moved = false;
+        while (isIdle()) {
+            long wakeTime = Long.MAX_VALUE;
+            for (Waiter waiter : waiting.values())
+                wakeTime = Math.min(wakeTime, waiter.wakeTime);
+            if (wakeTime == Long.MAX_VALUE)
+                break; // all the threads wait for conditions, only something outside the game can help
+            now = wakeTime;
+            moved = true;
+        }
+        if (moved)
+            changed.signalAll();
+    }
+
+    /**
+     * @return - true iff every game thread waits on the clock and no waiting thread can go on (called holding the
+     * lock).
+     */
+    private boolean isIdle() {
+        if (starting > 0)
+            return false;
+        for (Thread thread : gameThreads)
+            if (!waiting.containsKey(thread))
+                return false;
+        for (Waiter waiter : waiting.values())
+            if (waiter.isReady())
+                return false;
+        return true;
+    }
+
+    /**
+     * Holds the time back while the thread runs.
+     */
+    @Override
+    public Runnable track(String name, Runnable target) {
+        lock.lock();
+        try {
+            starting++;
+        } finally {
+            lock.unlock();
+        }
+        return () -> {
+            Thread thread = Thread.currentThread();
+            lock.lock();
+            try {
+                starting--;
+                gameThreads.add(thread);
+            } finally {
+                lock.unlock();
+            }
+            try {
+                target.run();
+            } finally {
+                lock.lock();
+                try {
+                    gameThreads.remove(thread);
+                    changed.signalAll();
+                    advance();
+                } finally {
+                    lock.unlock();
+                }
+            }
+        };
+    }
+}
@@ -0,0 +1,33 @@
+package bguspl.set.ex;
+
+/**
+ * The skill levels of the computer players.
+ */
+public enum ComputerSkill {
+
+    RANDOM(0, 0.0, 0.0),
+    EASY(2000, 0.3, 0.2),
+    MEDIUM(1000, 0.6, 0.1),
+    HARD(400, 0.9, 0.02);
+
+    /**
+     * The number of milliseconds the computer player waits before each key press.
+     */
+    public final long reactionMillis;
+
+    /**
+     * The chance (between 0 and 1) that the computer player goes for a real set on the table instead of guessing.
+     */
+    public final double setChance;
+
+    /**
+     * The chance (between 0 and 1) that a single key press hits a random slot instead of the planned one.
+     */
+    public final double errorRate;
+
+    ComputerSkill(long reactionMillis, double setChance, double errorRate) {
+        this.reactionMillis = reactionMillis;
+        this.setChance = setChance;
+        this.errorRate = errorRate;
+    }
+}
@@ -1,12 +1,25 @@
 package bguspl.set.ex;
 
+import bguspl.set.ClaimLatencies.Stage;
 import bguspl.set.Env;
-import bguspl.set.ThreadLogger;
-
+import bguspl.set.GameEvents;
+import bguspl.set.GameJournal;
+import bguspl.set.GameMetrics.Counter;
+import bguspl.set.GameMetrics.Gauge;
+import bguspl.set.LatencyHistogram;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
-import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
@@ -46,21 +59,38 @@ public class Dealer implements Runnable {
     /**
      * true if a player have a legal set
      */
-    private boolean legalSetMade = false;
+    private volatile boolean legalSetMade = false;
+
+    /**
+     * the player whose legal set the dealer should handle (-1 if none). Set by the player holding the claim semaphore,
+     * so there is at most one.
+     */
+    private volatile int claimingPlayer = -1;
+
+    /**
+     * the number of players waiting for the claim semaphore
+     */
+    private final AtomicInteger claimsWaiting = new AtomicInteger();
 
     /**
-     * queue of players who claim to have a set
+     * the number of legal sets on the table, counted by the dealer whenever it changes the cards (for the metrics,
+     * which are read from other threads)
      */
-    private LinkedBlockingQueue<Integer> playersClaimSet = new LinkedBlockingQueue<>();
+    private volatile int setsOnTable;
 
 
     /**
      * The thread of the dealer
      */
-    private Thread dealerThread;
+    private volatile Thread dealerThread;
 
-    public final Object playerLock;
-    public boolean cardDealing;
+    public final ReentrantLock playerLock;
+    public volatile boolean cardDealing;
+
+    /**
+     * signaled by the dealer when it is done handling a legal set
+     */
+    private final Condition setHandled;
 
     /**
      * in order not to make magic numbers
@@ -69,7 +99,40 @@ public class Dealer implements Runnable {
 
     Semaphore sem;
 
-    //private List<ThreadLogger> Pthreads;
+    /**
+     * shuffles the deck (seeded by the game seed, its position is kept in the snapshots)
+     */
+    private final DeckRandom random;
+
+    /**
+     * writes the snapshots of the game state (null if there are none), the time of the next snapshot and the time it
+     * takes the dealer to copy the state
+     */
+    private final GameSnapshot.Writer snapshots;
+    private long nextSnapshotTime;
+    private final LatencyHistogram snapshotCopy = new LatencyHistogram();
+
+    /**
+     * the time that was left until the reshuffle in a restored game (0 if the game was not restored)
+     */
+    private long restoredTurnMillis;
+
+    /**
+     * true from restoring a snapshot until the first deal: the restored deck is already shuffled
+     */
+    private boolean restoredDeck;
+
+    /**
+     * The threads of the players, by player id (null until they are started)
+     */
+    private final Thread[] playerThreads;
+
+    /**
+     * the time the game was told to terminate (0 if it was not), and the time it took the game threads to stop after
+     * that (-1 until they did)
+     */
+    private volatile long terminateNanos;
+    private volatile long shutdownNanos = -1;
 
 
     public Dealer(Env env, Table table, Player[] players) {
@@ -77,12 +140,45 @@ public class Dealer implements Runnable {
         this.table = table;
         this.players = players;
         deck = IntStream.range(0, env.config.deckSize).boxed().collect(Collectors.toList());
-        playerLock = new Object();
+        playerLock = new ReentrantLock();
+        setHandled = playerLock.newCondition();
         featureSize = env.config.featureSize;
         this.sem = new Semaphore(1);
+        this.random = new DeckRandom(env.config.seed);
+        this.snapshots = env.config.snapshotMillis > 0 && !env.snapshotFile.isEmpty()
+                ? new GameSnapshot.Writer(env.logger, Paths.get(env.snapshotFile)) : null;
         cardDealing = true;
-        //this.Pthreads = new ArrayList<>();
+        playerThreads = new Thread[players.length];
+        registerGauges();
+    }
 
+    /**
+     * Sets the gauges of the game metrics. The players are read when a gauge is, since they are created after the
+     * dealer.
+     */
+    private void registerGauges() {
+        env.metrics.gauge(Gauge.DECK_SIZE, deck::size);
+        env.metrics.gauge(Gauge.CARDS_ON_TABLE, table::countCards);
+        env.metrics.gauge(Gauge.SETS_ON_TABLE, () -> setsOnTable);
+        env.metrics.gauge(Gauge.CLAIM_QUEUE_DEPTH, claimsWaiting::get);
+        env.metrics.gauge(Gauge.INPUT_QUEUE_DEPTH, () -> {
+            long total = 0;
+            for (Player p : players)
+                if (p != null) total += p.pendingInputs();
+            return total;
+        });
+        env.metrics.gauge(Gauge.MAX_INPUT_QUEUE_DEPTH, () -> {
+            long max = 0;
+            for (Player p : players)
+                if (p != null) max = Math.max(max, p.pendingInputs());
+            return max;
+        });
+        env.metrics.gauge(Gauge.DROPPED_INPUTS, () -> {
+            long total = 0;
+            for (Player p : players)
+                if (p != null) total += p.droppedInputs();
+            return total;
+        });
     }
 
     /**
@@ -91,43 +187,188 @@ public class Dealer implements Runnable {
     @Override
     public void run() {
         env.logger.info("thread " + Thread.currentThread().getName() + " starting.");
-        createPlayerThreads();
         dealerThread = Thread.currentThread(); //saving the dealer thread
+        env.metrics.register(env.logger);
+        env.metrics.startLogging(env.logger, env.config.metricsLogMillis);
+        if (env.config.restore) restore();
+        createPlayerThreads();
         while (!shouldFinish()) { //Game end conditions met
             placeCardsOnTable();
-            table.hints();
+            if (env.config.hints) table.hints();
             timerLoop();
             updateTimerDisplay(true);
             removeAllCardsFromTable();
         }
+        boolean stopped = terminate;
         announceWinners();
-//        terminatePlayersThreads();
+        env.logger.info(env.latencies.summary());
+        env.logger.info("metrics: " + env.metrics.getSummary());
+        if (snapshots != null) closeSnapshots(stopped);
+        shutdown(); // the game is over, stop the players
+        env.metrics.close();
         env.logger.info("thread " + Thread.currentThread().getName() + " terminated.");
-//        try {
-//            dealerThread.join(); // Wait for the thread to finish
-//        } catch (InterruptedException e) {}
+    }
+
+    /**
+     * Stops the game threads: interrupts them all, then waits for them in the reverse order of their creation (each
+     * player's computer thread before the player thread, the last player first), all within the shutdown timeout. The
+     * threads that did not stop in time are logged and left behind.
+     */
+    private void shutdown() {
+        terminate();
+        Thread.interrupted(); // a claim may have woken the dealer up after the game ended, that is not a reason to stop waiting
+        long deadline = System.nanoTime() + env.config.shutdownTimeoutMillis * 1_000_000;
+        List<Thread> laggards = new ArrayList<>();
+        for (int i = players.length - 1; i >= 0; i--) {
+            for (Thread thread : new Thread[]{players[i].computerThread(), playerThreads[i]})
+                if (thread != null && !awaitStop(thread, deadline))
+                    laggards.add(thread);
+        }
+        shutdownNanos = System.nanoTime() - terminateNanos;
+        for (Thread thread : laggards) {
+            StackTraceElement[] stack = thread.getStackTrace();
+            env.logger.severe("thread " + thread.getName() + " did not stop within " + env.config.shutdownTimeoutMillis
+                    + "ms (" + thread.getState() + (stack.length > 0 ? " at " + stack[0] : "") + ").");
+        }
+        env.logger.info(String.format("game threads stopped in %.1fms.", shutdownNanos / 1_000_000.0));
+    }
+
+    /**
+     * Waits for a thread to end, until a deadline.
+     *
+     * @param thread   - the thread.
+     * @param deadline - the System.nanoTime() to give up at.
+     * @return - true iff the thread ended.
+     */
+    private boolean awaitStop(Thread thread, long deadline) {
+        while (thread.isAlive() && System.nanoTime() < deadline) {
+            try {
+                if (env.clock.isSimulated()) // the clock must know the dealer waits
+                    env.clock.awaitUntil(() -> !thread.isAlive() || System.nanoTime() >= deadline);
+                else
+                    thread.join(Math.max(1, (deadline - System.nanoTime()) / 1_000_000));
+            } catch (InterruptedException ignored) { // keep waiting until the deadline
+            }
+        }
+        return !thread.isAlive();
+    }
+
+    /**
+     * @return - the time it took the game threads to stop after the game was told to terminate, in nanoseconds (-1 if
+     * they did not stop yet).
+     */
+    public long shutdownNanos() {
+        return shutdownNanos;
     }
 
     /**
      * The inner loop of the dealer thread that runs as long as the countdown did not time out.
      */
     private void timerLoop() {
-        reshuffleTime = System.currentTimeMillis() + env.config.turnTimeoutMillis;
-        while (!terminate && System.currentTimeMillis() < reshuffleTime) {
+        reshuffleTime = env.clock.millis() + (restoredTurnMillis > 0 ? restoredTurnMillis : env.config.turnTimeoutMillis);
+        restoredTurnMillis = 0;
+        while (!terminate && env.clock.millis() < reshuffleTime) {
             sleepUntilWokenOrTimeout(); // sleep for 1 sec
             updateTimerDisplay(false); // countdown
-            if (dealerThread.interrupted()) { // player claim set
+            if (Thread.interrupted() && !terminate) { // player claim set
+                long replaceStart = System.nanoTime();
                 removeCardsFromTable();
                 placeCardsOnTable();
-                legalSetMade = false;
-                synchronized (playerLock) {
-                    playerLock.notifyAll();
+                env.latencies.record(Stage.REPLACE_CARDS, System.nanoTime() - replaceStart);
+                lockPlayers(-1);
+                try {
+                    claimingPlayer = -1;
+                    legalSetMade = false;
+                    setHandled.signalAll();
+                } finally {
+                    playerLock.unlock();
                 }
-                reshuffleTime = System.currentTimeMillis() + env.config.turnTimeoutMillis;
+                reshuffleTime = env.clock.millis() + env.config.turnTimeoutMillis;
                 updateTimerDisplay(true); // reset timer after a legal set
-                table.hints();
+                if (env.config.hints) table.hints();
             }
+            if (snapshots != null && env.clock.millis() >= nextSnapshotTime)
+                takeSnapshot();
         }
+        if (terminate && snapshots != null)
+            takeSnapshot(); // the game is stopped, keep where it got to
+    }
+
+    /**
+     * Copies the game state and hands it to the snapshot writer. Runs between two ticks, so the cards do not change
+     * during the copy; the cost is bounded by the deck, table and token sizes and is measured.
+     */
+    private void takeSnapshot() {
+        long start = System.nanoTime();
+        int[] deckCopy = deck.stream().mapToInt(Integer::intValue).toArray();
+        int[][] tokens = new int[players.length][];
+        int[] scores = new int[players.length];
+        long[] penalties = new long[players.length];
+        for (Player p : players) {
+            PlayerStats.Snapshot stats = p.stats().snapshot();
+            tokens[p.id] = p.tokens();
+            scores[p.id] = stats.score;
+            penalties[p.id] = stats.penalties;
+        }
+        GameSnapshot snapshot = new GameSnapshot(env.config.seed, random.state(), table.version(),
+                Math.max(0, reshuffleTime - env.clock.millis()), deckCopy, table.cards(), tokens, scores, penalties);
+        snapshotCopy.record(System.nanoTime() - start);
+        snapshots.offer(snapshot);
+        nextSnapshotTime = env.clock.millis() + env.config.snapshotMillis;
+    }
+
+    /**
+     * Writes out the last snapshot. A game that ended by the rules has nothing to resume, so its snapshot is deleted.
+     *
+     * @param stopped - true iff the game was stopped before its end.
+     */
+    private void closeSnapshots(boolean stopped) {
+        snapshots.close();
+        env.logger.info(snapshots.written() + " game snapshots written, copying the state took " + snapshotCopy);
+        if (!stopped) try {
+            Files.deleteIfExists(Paths.get(env.snapshotFile));
+        } catch (IOException e) {
+            env.logger.severe("cannot delete the game snapshot: " + e);
+        }
+    }
+
+    /**
+     * Resumes the game from the snapshot file (before the player threads start), or starts a new game if there is no
+     * usable snapshot.
+     */
+    private void restore() {
+        long start = System.nanoTime();
+        if (env.snapshotFile.isEmpty()) {
+            env.logger.info("no game snapshot file, starting a new game.");
+            return;
+        }
+        Path file = Paths.get(env.snapshotFile);
+        GameSnapshot snapshot;
+        try {
+            snapshot = GameSnapshot.read(file);
+        } catch (NoSuchFileException e) {
+            env.logger.info("no game snapshot " + file + ", starting a new game.");
+            return;
+        } catch (IOException e) {
+            env.logger.severe("cannot read the game snapshot " + file + ": " + e + ", starting a new game.");
+            return;
+        }
+        String mismatch = snapshot.mismatch(env.config.deckSize, env.config.tableSize, players.length);
+        if (mismatch != null) {
+            env.logger.severe("the game snapshot " + file + " does not fit this game (" + mismatch + "), starting a new game.");
+            return;
+        }
+        deck.clear();
+        for (int card : snapshot.deck)
+            deck.add(card);
+        random.setState(snapshot.shuffleState); // the next shuffles are those the snapshot's game would have made
+        table.restore(snapshot.slotToCard, snapshot.tableVersion);
+        for (Player p : players)
+            p.restore(snapshot.tokens[p.id], snapshot.scores[p.id], snapshot.penalties[p.id]);
+        restoredTurnMillis = snapshot.turnMillisLeft;
+        restoredDeck = true;
+        env.logger.info(String.format("restored the game snapshot %s (seed %d) in %.2fms.", file, snapshot.seed,
+                (System.nanoTime() - start) / 1_000_000.0));
     }
 
     /**
@@ -135,9 +376,14 @@ public class Dealer implements Runnable {
      */
     public void terminate() {
         // TODO implement
+        if (terminateNanos == 0)
+            terminateNanos = System.nanoTime();
         for (Player player : players)
             player.terminate();
         terminate = true;
+        Thread dealer = dealerThread;
+        if (dealer != null && dealer != Thread.currentThread() && !env.clock.isLockstep())
+            env.clock.interrupt(dealer); // do not wait for the next tick (a lockstep game gets to it at once, and in turn)
     }
 
     /**
@@ -156,7 +402,9 @@ public class Dealer implements Runnable {
     private void removeCardsFromTable() {
         // TODO implement
         int[] slots = null;
-        int playerId = playersClaimSet.poll();
+        int playerId = claimingPlayer;
+        if (playerId < 0) // not woken up by a claim
+            return;
         for (Player p : players) { //to find the slots we need to delete from the table
             if (p.id == playerId) {
                 slots = p.getPlayerTokens().stream().mapToInt(Integer::intValue).toArray();
@@ -181,17 +429,29 @@ public class Dealer implements Runnable {
      */
     private void placeCardsOnTable() {
         // TODO implement
+        Object event = GameEvents.beginDeal();
+        StringBuilder placements = event != null ? new StringBuilder() : null;
         cardDealing = true;
-        Collections.shuffle(deck);
+        if (!restoredDeck) // the snapshot's game shuffled this deck already, its next shuffle comes at its next deal
+            Collections.shuffle(deck, random);
+        restoredDeck = false;
         int tableSize = env.config.tableSize;
+        int dealt = 0;
         boolean missingCards = (table.countCards() < tableSize);
         for (int i = 0; deck.size() != 0 && missingCards & i < tableSize; i++) {
             Integer card = table.slotToCard[i];
             if (card == null) {
-                table.placeCard(deck.remove(0), i);//fill empty table slots with cards from the deck and deleting it from the list
+                card = deck.remove(0);
+                table.placeCard(card, i);//fill empty table slots with cards from the deck and deleting it from the list
+                env.metrics.increment(Counter.CARDS_DEALT);
+                dealt++;
+                if (placements != null) placements.append(placements.length() == 0 ? "" : " ").append(i).append('=').append(card);
             }
         }
         cardDealing = false;
+        setsOnTable = table.setsOnTable().size();
+        if (placements != null)
+            GameEvents.commitDeal(event, dealt, deck.size(), placements.toString());
     }
 
     /**
@@ -200,9 +460,7 @@ public class Dealer implements Runnable {
     private void sleepUntilWokenOrTimeout() {
         // TODO implement
         try {
-            synchronized (playerLock) {
-                Thread.sleep(1000);
-            }
+            env.clock.sleep(1000);
         } catch (InterruptedException ignored) {
             Thread.currentThread().interrupt();
 
@@ -217,7 +475,7 @@ public class Dealer implements Runnable {
         if (reset) { // reset the timer due to a set being found by a player or due to time run out
             env.ui.setCountdown(env.config.turnTimeoutMillis, false);
         } else { // no need to reset, only update to time that passed
-            long timeLeft = reshuffleTime - System.currentTimeMillis();
+            long timeLeft = reshuffleTime - env.clock.millis();
             boolean warn = timeLeft < env.config.turnTimeoutWarningMillis; // time is about to run out
             env.ui.setCountdown(timeLeft, warn);
         }
@@ -228,11 +486,17 @@ public class Dealer implements Runnable {
      */
     private void removeAllCardsFromTable() {
         // TODO implement
+        Object event = GameEvents.beginReshuffle();
         cardDealing = true;
+        int returned = 0;
         for (Integer card : table.slotToCard) { // return each card from the table to the deck
-            if (card != null)
+            if (card != null) {
                 deck.add(card);
+                returned++;
+            }
         }
+        env.metrics.increment(Counter.RESHUFFLES);
+        if (env.journal != null) env.journal.append(env.clock.millis(), GameJournal.Type.RESHUFFLE, -1, -1, -1, deck.size());
         for (int i = 0; i < env.config.tableSize; i++) {
             table.removeCard(i);
             table.resetTokens();
@@ -240,7 +504,9 @@ public class Dealer implements Runnable {
         for (Player p : players) {
             p.resetQueue();
         }
+        setsOnTable = 0;
         cardDealing = false;
+        GameEvents.commitReshuffle(event, returned, deck.size());
     }
 
     /**
@@ -250,18 +516,21 @@ public class Dealer implements Runnable {
         // TODO implement
         int maxPoints = -1;
         int countWinners = 0;
-        for (Player player : players) {
-            if (maxPoints < player.score()) {
-                maxPoints = player.score();
+        PlayerStats.Snapshot[] stats = new PlayerStats.Snapshot[players.length];
+        for (int i = 0; i < players.length; i++) {
+            stats[i] = players[i].stats().snapshot();
+            env.logger.info("player " + players[i].id + " stats: " + stats[i]);
+            if (maxPoints < stats[i].score) {
+                maxPoints = stats[i].score;
                 countWinners = 1;
-            } else if (maxPoints == player.score())
+            } else if (maxPoints == stats[i].score)
                 countWinners++;
         }
         int indexArray = 0;
         int[] winners = new int[countWinners];
-        for (Player player : players) {
-            if (maxPoints == player.score()) {
-                winners[indexArray] = player.id;
+        for (int i = 0; i < players.length; i++) {
+            if (maxPoints == stats[i].score) {
+                winners[indexArray] = players[i].id;
                 indexArray++;
             }
         }
@@ -270,45 +539,73 @@ public class Dealer implements Runnable {
 
     private void createPlayerThreads() {
         for (Player p : players) {
-            ThreadLogger playerThread = new ThreadLogger(p, "player " + p.id, env.logger);
-            //Pthreads.add(playerThread);
-            playerThread.start();
+            playerThreads[p.id] = env.threads.start(p, "player " + p.id);
         }
     }
 
-    private void isLegalSetMade(int playerId) {
+    /**
+     * Confirms a set claimed by a player. The player already checked the set, so it is checked again only if the
+     * cards on the table changed since.
+     *
+     * @param playerId - the player who claims the set.
+     * @param version  - the table version the player checked the set at.
+     */
+    private void isLegalSetMade(int playerId, int version) {
         try {
-            sem.acquire();
+            long waitStart = System.nanoTime();
+            Object lockWait = GameEvents.beginLockWait();
+            claimsWaiting.incrementAndGet();
+            try {
+                if (env.clock.isSimulated()) { // another thread may take the permit first, wait again then
+                    while (!sem.tryAcquire())
+                        env.clock.awaitUntil(() -> sem.availablePermits() > 0);
+                } else
+                    sem.acquire();
+            } finally {
+                claimsWaiting.decrementAndGet();
+            }
+            GameEvents.commitLockWait(lockWait, "sem", playerId);
+            Object verification = GameEvents.beginClaimVerification();
+            long verifyStart = System.nanoTime();
+            env.latencies.record(Stage.SEMAPHORE_WAIT, verifyStart - waitStart);
+            env.metrics.increment(Counter.SEMAPHORE_WAITS);
+            env.metrics.add(Counter.SEMAPHORE_WAIT_NANOS, verifyStart - waitStart);
             for (Player p : players) {
                 if (p.id == playerId) {
                     int[] slots = p.getPlayerTokens().stream().mapToInt(Integer::intValue).toArray();
 
                     if (slots.length == featureSize) {
                         int[] cards = table.cardsTokenedByPlayer(slots);
-                        legalSetMade = env.util.testSet(cards);
+                        if (cards == null) { // the table changed and one of the tokens is gone
+                            env.metrics.increment(Counter.STALE_CLAIMS);
+                            commitVerification(verification, playerId, slots, null, version, "stale");
+                            sem.release();
+                            break;
+                        }
+                        legalSetMade = table.version() == version || env.util.testSet(cards);
+                        long handlingStart = System.nanoTime();
+                        env.latencies.record(Stage.VERIFY, handlingStart - verifyStart);
+                        commitVerification(verification, playerId, slots, cards, version, legalSetMade ? "legal" : "illegal");
 
                         if (legalSetMade) {
-                            synchronized (playerLock) {
-                                dealerThread.interrupt();
-
-                                while (legalSetMade) {
-                                    try {
-                                        playerLock.wait();
-                                    } catch (InterruptedException ignored) {
-                                        Thread.currentThread().interrupt();
-                                    }
-                                }
-                                sem.release();  // Release the semaphore after waiting but before calling p.point()
-                                p.point();
-                                p.resetQueue();
+                            claimingPlayer = playerId; // the dealer removes the cards under this player's tokens
+                            try {
+                                awaitSetHandled(playerId);
+                            } catch (InterruptedException e) { // the game is terminating
+                                Thread.currentThread().interrupt();
+                                sem.release();
+                                return;
                             }
+                            env.latencies.record(Stage.SET_HANDLING, System.nanoTime() - handlingStart);
+                            sem.release();  // Release the semaphore after waiting but before calling p.point()
+                            p.point();
+                            p.resetQueue();
                         } else {
                             sem.release();
-                            playersClaimSet.poll();
                             p.penalty();
                         }
                         break;
-                    } else
+                    } else // the dealer took some of the tokens since, nothing left to claim
                         sem.release();
                 }
             }
@@ -317,22 +614,53 @@ public class Dealer implements Runnable {
         }
     }
 
-    // TODO check if necessary
-    public void setPlayersClaimSet(int playerId) {
-        playersClaimSet.add(playerId);
-        isLegalSetMade(playerId);
+    /**
+     * Records the verdict on a claim in the flight recording (if the event is recorded).
+     */
+    private void commitVerification(Object event, int playerId, int[] slots, int[] cards, int version, String verdict) {
+        GameEvents.commitClaimVerification(event, playerId, slots, cards, version, table.version(), verdict);
     }
 
+    /**
+     * Locks the player lock, recording the wait.
+     *
+     * @param playerId - the player who locks it (-1 for the dealer).
+     */
+    private void lockPlayers(int playerId) {
+        Object lockWait = GameEvents.beginLockWait();
+        playerLock.lock();
+        GameEvents.commitLockWait(lockWait, "playerLock", playerId);
+    }
 
-//    public void terminatePlayersThreads(){
-//        for (int i = Pthreads.size() - 1; i >= 0; i--) {
-//            Thread thread = Pthreads.get(i);
-//            // gracefully terminate each thread
-//            try {
-//                thread.join(); // wait for the player thread to finish
-//            } catch (InterruptedException e) {}
-//        }
-//    }
-}
-
+    /**
+     * Wakes the dealer up to handle the legal set and waits until it did.
+     *
+     * @param playerId - the player who claimed the set.
+     * @throws InterruptedException - if interrupted while waiting.
+     */
+    private void awaitSetHandled(int playerId) throws InterruptedException {
+        if (env.clock.isSimulated()) { // the game threads may only wait on the clock
+            env.clock.interrupt(dealerThread);
+            env.clock.awaitUntil(() -> !legalSetMade);
+            return;
+        }
+        lockPlayers(playerId);
+        try {
+            env.clock.interrupt(dealerThread);
+            while (legalSetMade)
+                setHandled.await();
+        } finally {
+            playerLock.unlock();
+        }
+    }
 
+    /**
+     * Called by a player who marked a legal set.
+     *
+     * @param playerId - the player who claims the set.
+     * @param version  - the table version the player checked the set at.
+     */
+    public void setPlayersClaimSet(int playerId, int version) {
+        isLegalSetMade(playerId, version);
+    }
+}
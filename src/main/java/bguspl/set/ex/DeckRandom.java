@@ -0,0 +1,47 @@
+package bguspl.set.ex;
+
+import java.util.Random;
+
+/**
+ * A java.util.Random whose position can be read and set, so a game resumed from a snapshot shuffles its deck as the
+ * game it was taken from would have. It makes the same numbers as a Random of the same seed (the same linear
+ * congruential generator), so seeded games deal the same cards as before.
+ */
+class DeckRandom extends Random {
+
+    private static final long MULTIPLIER = 0x5DEECE66DL;
+    private static final long ADDEND = 0xBL;
+    private static final long MASK = (1L << 48) - 1;
+
+    private long state;
+
+    DeckRandom(long seed) {
+        super(seed); // calls setSeed
+    }
+
+    @Override
+    public synchronized void setSeed(long seed) {
+        super.setSeed(seed); // clears the cached Gaussian
+        state = (seed ^ MULTIPLIER) & MASK;
+    }
+
+    @Override
+    protected int next(int bits) {
+        state = (state * MULTIPLIER + ADDEND) & MASK;
+        return (int) (state >>> (48 - bits));
+    }
+
+    /**
+     * @return - the position of the generator (used by the dealer thread only).
+     */
+    long state() {
+        return state;
+    }
+
+    /**
+     * Moves the generator to a position returned by state().
+     */
+    void setState(long state) {
+        this.state = state & MASK;
+    }
+}
@@ -0,0 +1,234 @@
+package bguspl.set.ex;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Logger;
+
+/**
+ * A copy of the full state of a game: the deck in order with the position of the generator that shuffles it, the
+ * cards on the table, the players' tokens, scores and penalties, and the time left until the reshuffle. The dealer
+ * copies the state between two of its ticks (the cards only change on the dealer thread, so the copy is consistent
+ * with a table version), and a Writer thread writes it out in a compact binary format, so the game never waits for
+ * the disk.
+ * <p>
+ * The players' tokens are copied while the players keep playing, so a token placed or removed during the copy may or
+ * may not be in the snapshot. A player's full set of tokens is a claim in flight and is not restored.
+ */
+public class GameSnapshot {
+
+    public static final int MAGIC = 0x53455453; // "SETS"
+    public static final int FORMAT_VERSION = 3; // 1 wrote the cards as shorts, 2 had no shuffle state
+
+    /**
+     * The longest array read, so a corrupt length cannot take all the memory.
+     */
+    private static final int MAX_ARRAY_LENGTH = 1 << 24;
+
+    final long seed;
+    final long shuffleState;
+    final int tableVersion;
+    final long turnMillisLeft;
+    final int[] deck;
+    final int[] slotToCard; // -1 for an empty slot
+    final int[][] tokens;   // the slots each player has tokens on, in the order they were placed
+    final int[] scores;
+    final long[] penalties;
+
+    GameSnapshot(long seed, long shuffleState, int tableVersion, long turnMillisLeft, int[] deck, int[] slotToCard,
+                 int[][] tokens, int[] scores, long[] penalties) {
+        this.seed = seed;
+        this.shuffleState = shuffleState;
+        this.tableVersion = tableVersion;
+        this.turnMillisLeft = turnMillisLeft;
+        this.deck = deck;
+        this.slotToCard = slotToCard;
+        this.tokens = tokens;
+        this.scores = scores;
+        this.penalties = penalties;
+    }
+
+    /**
+     * Writes the snapshot to a temporary file and moves it over the file, so a crash during the write never leaves a
+     * broken snapshot behind.
+     *
+     * @param file - the snapshot file.
+     * @throws IOException - if the snapshot cannot be written.
+     */
+    public void write(Path file) throws IOException {
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeLong(seed);
+            out.writeLong(shuffleState);
+            out.writeInt(tableVersion);
+            out.writeLong(turnMillisLeft);
+            writeInts(out, deck);
+            writeInts(out, slotToCard);
+            out.writeShort(tokens.length);
+            for (int player = 0; player < tokens.length; player++) {
+                writeInts(out, tokens[player]);
+                out.writeInt(scores[player]);
+                out.writeLong(penalties[player]);
+            }
+        }
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Reads a snapshot.
+     *
+     * @param file - the snapshot file.
+     * @return - the snapshot.
+     * @throws IOException - if the file cannot be read or is not a snapshot.
+     */
+    public static GameSnapshot read(Path file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC)
+                throw new IOException(file + " is not a game snapshot");
+            int version = in.readInt();
+            if (version != FORMAT_VERSION)
+                throw new IOException(file + " is a game snapshot of format " + version + ", expected " + FORMAT_VERSION);
+            long seed = in.readLong();
+            long shuffleState = in.readLong();
+            int tableVersion = in.readInt();
+            long turnMillisLeft = in.readLong();
+            int[] deck = readInts(in);
+            int[] slotToCard = readInts(in);
+            int players = in.readShort();
+            if (players < 0)
+                throw new IOException(file + " is a corrupt game snapshot (" + players + " players)");
+            int[][] tokens = new int[players][];
+            int[] scores = new int[players];
+            long[] penalties = new long[players];
+            for (int player = 0; player < players; player++) {
+                tokens[player] = readInts(in);
+                scores[player] = in.readInt();
+                penalties[player] = in.readLong();
+            }
+            return new GameSnapshot(seed, shuffleState, tableVersion, turnMillisLeft, deck, slotToCard, tokens, scores, penalties);
+        }
+    }
+
+    /**
+     * Checks that the snapshot can be applied to a game: the same table and players, and only cards of the deck, each
+     * at most once.
+     *
+     * @return - what does not fit, or null if the snapshot fits.
+     */
+    String mismatch(int deckSize, int tableSize, int players) {
+        if (slotToCard.length != tableSize)
+            return "a table of " + slotToCard.length + " slots instead of " + tableSize;
+        if (tokens.length != players || scores.length != players || penalties.length != players)
+            return tokens.length + " players instead of " + players;
+        boolean[] seen = new boolean[deckSize];
+        for (int card : deck)
+            if (card < 0 || card >= deckSize || seen[card])
+                return "card " + card + " in the deck";
+            else
+                seen[card] = true;
+        for (int card : slotToCard)
+            if (card != -1 && (card < 0 || card >= deckSize || seen[card]))
+                return "card " + card + " on the table";
+            else if (card != -1)
+                seen[card] = true;
+        for (int[] playerTokens : tokens)
+            for (int slot : playerTokens)
+                if (slot < 0 || slot >= tableSize)
+                    return "a token on slot " + slot;
+        return null;
+    }
+
+    private static void writeInts(DataOutputStream out, int[] values) throws IOException {
+        out.writeInt(values.length);
+        for (int value : values)
+            out.writeInt(value); // a generated deck may have more cards than a short holds
+    }
+
+    private static int[] readInts(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0 || length > MAX_ARRAY_LENGTH)
+            throw new IOException("corrupt game snapshot (an array of " + length + " values)");
+        int[] values = new int[length];
+        for (int i = 0; i < values.length; i++)
+            values[i] = in.readInt();
+        return values;
+    }
+
+    /**
+     * Writes the snapshots on a background thread. Only the latest snapshot matters, so a snapshot that was not
+     * written yet when a newer one comes is skipped.
+     */
+    static class Writer {
+
+        private static final long CLOSE_TIMEOUT_MILLIS = TimeUnit.SECONDS.toMillis(5);
+
+        private final Logger logger;
+        private final Path file;
+        private final AtomicReference<GameSnapshot> pending = new AtomicReference<>();
+        private final Thread thread;
+        private volatile boolean closed;
+        private volatile long written;
+
+        Writer(Logger logger, Path file) {
+            this.logger = logger;
+            this.file = file;
+            thread = new Thread(this::writeLoop, "snapshot-writer");
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        /**
+         * Hands a snapshot to the writer thread. Never blocks.
+         */
+        void offer(GameSnapshot snapshot) {
+            pending.set(snapshot);
+            LockSupport.unpark(thread);
+        }
+
+        /**
+         * @return - the number of snapshots written so far.
+         */
+        long written() {
+            return written;
+        }
+
+        /**
+         * Writes the pending snapshot (if any) and stops the writer thread.
+         */
+        void close() {
+            closed = true;
+            LockSupport.unpark(thread);
+            try {
+                thread.join(CLOSE_TIMEOUT_MILLIS);
+            } catch (InterruptedException ignored) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        private void writeLoop() {
+            while (true) {
+                GameSnapshot snapshot = pending.getAndSet(null);
+                if (snapshot != null) try {
+                    snapshot.write(file);
+                    written++; // only the writer thread writes it
+                } catch (IOException e) {
+                    logger.severe("cannot write the game snapshot " + file + ": " + e);
+                }
+                else if (closed)
+                    return;
+                else
+                    LockSupport.parkNanos(this, TimeUnit.SECONDS.toNanos(1));
+            }
+        }
+    }
+}
@@ -0,0 +1,310 @@
+package bguspl.set.ex;
+
+import bguspl.set.Clock;
+import bguspl.set.SystemClock;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A bounded buffer for the key presses of a single player.
+ * There is exactly one producer (the keyboard thread for a human player or the AI thread for a computer player) and
+ * one consumer (the player thread), so the buffer is a lock-free ring. Key presses are rate limited by a token bucket,
+ * and pressing the slot of the press just before, while that press is still waiting in the buffer, cancels both
+ * presses (the second press is still charged to the rate limit).
+ * Each key press carries the time it was made (System.nanoTime()), so its latency can be measured after it is taken.
+ * The rate limit goes by the game's clock, so a game on a simulated clock drops the same presses however fast the
+ * machine runs it.
+ *
+ * @inv 0 <= size() <= capacity
+ */
+public class InputBuffer {
+
+    /**
+     * The states of an entry in the ring.
+     */
+    private static final int PENDING = 0;
+    private static final int TAKEN = 1;
+    private static final int CANCELLED = 2;
+
+    private static final double NANOS_PER_SECOND = 1_000_000_000.0;
+
+    /**
+     * The maximal number of key presses waiting in the buffer.
+     */
+    private final int capacity;
+
+    /**
+     * The ring entries: the slot pressed, the time it was pressed and its state.
+     */
+    private final int[] slots;
+    private final long[] stamps;
+    private final AtomicIntegerArray states;
+
+    /**
+     * The next entry to take (written by the consumer only) and the next entry to fill (written by the producer only).
+     */
+    private final AtomicLong head = new AtomicLong();
+    private final AtomicLong tail = new AtomicLong();
+
+    /**
+     * The threads parked waiting for a key press / for free space.
+     */
+    private volatile Thread consumer;
+    private volatile Thread producer;
+
+    /**
+     * The time the key press last taken was made (used by the consumer only).
+     */
+    private long lastStamp;
+
+    /**
+     * The clock of the game, the rate limit goes by.
+     */
+    private final Clock clock;
+
+    /**
+     * The token bucket (used by the producer only). A rate of 0 or less means no rate limit.
+     */
+    private final double tokensPerNano;
+    private final double burst;
+    private double tokens;
+    private long lastRefill;
+
+    /**
+     * Counters of the key presses that were dropped (buffer full or rate limited) and cancelled by a second press.
+     */
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+
+    /**
+     * @param capacity      - the maximal number of key presses waiting in the buffer.
+     * @param ratePerSecond - the number of key presses allowed per second (0 or less for no limit).
+     * @param burst         - the number of key presses allowed in a burst.
+     * @throws IllegalArgumentException - if capacity is not positive.
+     */
+    public InputBuffer(int capacity, double ratePerSecond, int burst) {
+        this(capacity, ratePerSecond, burst, new SystemClock());
+    }
+
+    /**
+     * @param clock - the clock of the game, the rate limit goes by.
+     */
+    public InputBuffer(int capacity, double ratePerSecond, int burst, Clock clock) {
+        if (capacity <= 0)
+            throw new IllegalArgumentException("input buffer capacity must be positive: " + capacity);
+        this.capacity = capacity;
+        this.slots = new int[capacity];
+        this.stamps = new long[capacity];
+        this.states = new AtomicIntegerArray(capacity);
+        this.tokensPerNano = ratePerSecond / NANOS_PER_SECOND;
+        this.burst = Math.max(1, burst);
+        this.tokens = this.burst;
+        this.clock = clock;
+        this.lastRefill = now();
+    }
+
+    /**
+     * Adds a key press made now without blocking. Called by the producer only.
+     *
+     * @param slot - the slot pressed.
+     * @return - false iff the key press was dropped.
+     */
+    public boolean offer(int slot) {
+        return offer(slot, System.nanoTime());
+    }
+
+    /**
+     * Adds a key press without blocking. Called by the producer only.
+     *
+     * @param slot       - the slot pressed.
+     * @param stampNanos - the time the key was pressed (System.nanoTime()).
+     * @return - false iff the key press was dropped.
+     */
+    public boolean offer(int slot, long stampNanos) {
+        if ((isFull() && !cancelsLast(slot)) || !acquireToken()) {
+            dropped.increment();
+            return false;
+        }
+        if (!coalesce(slot))
+            publish(slot, stampNanos); // there is space: it was not full, or the press to cancel was just taken
+        return true;
+    }
+
+    /**
+     * Adds a key press made now, waiting for free space and for the rate limit if needed. Called by the producer only.
+     *
+     * @param slot - the slot pressed.
+     * @throws InterruptedException - if interrupted while waiting.
+     */
+    public void put(int slot) throws InterruptedException {
+        put(slot, System.nanoTime());
+    }
+
+    /**
+     * Adds a key press, waiting for free space and for the rate limit if needed. Called by the producer only. On a
+     * simulated clock the producer waits on the clock, as the game threads must.
+     *
+     * @param slot       - the slot pressed.
+     * @param stampNanos - the time the key was pressed (System.nanoTime()).
+     * @throws InterruptedException - if interrupted while waiting.
+     */
+    public void put(int slot, long stampNanos) throws InterruptedException {
+        producer = Thread.currentThread();
+        while (!acquireToken()) {
+            long waitNanos = (long) Math.ceil((1 - tokens) / tokensPerNano);
+            if (clock.isSimulated())
+                clock.sleep(Math.max(1, TimeUnit.NANOSECONDS.toMillis(waitNanos)));
+            else
+                LockSupport.parkNanos(this, waitNanos);
+            if (Thread.interrupted()) throw new InterruptedException();
+        }
+        if (coalesce(slot))
+            return;
+        while (isFull()) {
+            if (clock.isSimulated())
+                clock.awaitUntil(() -> !isFull());
+            else
+                LockSupport.park(this);
+            if (Thread.interrupted()) throw new InterruptedException();
+        }
+        publish(slot, stampNanos);
+    }
+
+    /**
+     * Removes the next key press, waiting until there is one. Called by the consumer only.
+     *
+     * @return - the slot pressed (the time it was pressed is then given by lastStamp()).
+     * @throws InterruptedException - if interrupted while waiting.
+     */
+    public int take() throws InterruptedException {
+        consumer = Thread.currentThread();
+        int slot;
+        while ((slot = poll()) < 0) {
+            LockSupport.park(this);
+            if (Thread.interrupted()) throw new InterruptedException();
+        }
+        return slot;
+    }
+
+    /**
+     * Removes the next key press without waiting. Called by the consumer only.
+     *
+     * @return - the slot pressed (the time it was pressed is then given by lastStamp()), or -1 if there is none.
+     */
+    public int poll() {
+        while (true) {
+            long h = head.get();
+            if (h == tail.get())
+                return -1;
+            int index = (int) (h % capacity);
+            boolean taken = states.compareAndSet(index, PENDING, TAKEN);
+            int slot = slots[index];
+            long stamp = stamps[index];
+            head.set(h + 1);
+            LockSupport.unpark(producer);
+            if (taken) { // otherwise it was cancelled by a second press, skip it
+                lastStamp = stamp;
+                return slot;
+            }
+        }
+    }
+
+    /**
+     * @return - the time (System.nanoTime()) the key press last returned by take() was made. Called by the consumer only.
+     */
+    public long lastStamp() {
+        return lastStamp;
+    }
+
+    /**
+     * @return - the number of entries in the buffer (including cancelled presses not yet skipped by the consumer).
+     */
+    public int size() {
+        return (int) (tail.get() - head.get());
+    }
+
+    /**
+     * @return - the number of key presses dropped because the buffer was full or because of the rate limit.
+     */
+    public long dropped() {
+        return dropped.sum();
+    }
+
+    /**
+     * @return - the number of key presses that cancelled each other out.
+     */
+    public long coalesced() {
+        return coalesced.sum();
+    }
+
+    /**
+     * @return - true iff there is no free space in the buffer.
+     */
+    public boolean isFull() {
+        return tail.get() - head.get() >= capacity;
+    }
+
+    /**
+     * @return - true iff the last key press added was of the same slot and is still waiting (it may be taken by the
+     * consumer right after).
+     */
+    private boolean cancelsLast(int slot) {
+        long t = tail.get();
+        if (t == head.get())
+            return false;
+        int index = (int) ((t - 1) % capacity);
+        return slots[index] == slot && states.get(index) == PENDING;
+    }
+
+    /**
+     * Cancels the last key press added if it was of the same slot and the consumer did not take it yet. Presses made
+     * before it are never cancelled: with other presses in between, the first press may already complete a claim.
+     *
+     * @return - true iff the key press was cancelled out.
+     */
+    private boolean coalesce(int slot) {
+        long t = tail.get();
+        if (t == head.get())
+            return false;
+        int index = (int) ((t - 1) % capacity);
+        if (slots[index] == slot && states.compareAndSet(index, PENDING, CANCELLED)) {
+            coalesced.add(2);
+            return true;
+        }
+        return false;
+    }
+
+    private boolean acquireToken() {
+        if (tokensPerNano <= 0)
+            return true;
+        long now = now();
+        tokens = Math.min(burst, tokens + (now - lastRefill) * tokensPerNano);
+        lastRefill = now;
+        if (tokens < 1)
+            return false;
+        tokens--;
+        return true;
+    }
+
+    /**
+     * @return - the time of the rate limit in nanoseconds: System.nanoTime() on the wall clock (finer than its
+     * milliseconds), the time of a simulated clock otherwise.
+     */
+    private long now() {
+        return clock.isSimulated() ? TimeUnit.MILLISECONDS.toNanos(clock.millis()) : System.nanoTime();
+    }
+
+    private void publish(int slot, long stampNanos) {
+        long t = tail.get();
+        int index = (int) (t % capacity);
+        slots[index] = slot;
+        stamps[index] = stampNanos;
+        states.set(index, PENDING);
+        tail.set(t + 1); // makes the entry visible to the consumer
+        LockSupport.unpark(consumer);
+    }
+}
@@ -1,11 +1,19 @@
 package bguspl.set.ex;
 
+import bguspl.set.ClaimLatencies.Stage;
 import bguspl.set.Env;
-
+import bguspl.set.GameEvents;
+import bguspl.set.GameJournal;
+import bguspl.set.GameMetrics.Counter;
+import bguspl.set.GameRecording;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.LinkedList;
+import java.util.List;
 import java.util.Queue;
 import java.util.Random;
-import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.LinkedBlockingQueue;
 
 /**
@@ -34,12 +42,12 @@ public class Player implements Runnable {
     /**
      * The thread representing the current player.
      */
-    private Thread playerThread;
+    private volatile Thread playerThread;
 
     /**
      * The thread of the AI (computer) player (an additional thread used to generate key presses).
      */
-    private Thread aiThread;
+    private volatile Thread aiThread;
 
     /**
      * True iff the player is human (not a computer player).
@@ -52,16 +60,16 @@ public class Player implements Runnable {
     private volatile boolean terminate;
 
     /**
-     * The current score of the player.
+     * The score and the other statistics of the player.
      */
-    private int score;
+    private final PlayerStats stats = new PlayerStats();
 
     // our implement from here
 
     /**
-     * queue for the player actions
+     * buffer for the player actions (bounded and rate limited)
      */
-    private LinkedBlockingQueue<Integer> incomingActions;
+    private final InputBuffer incomingActions;
 
     /**
      * the game Dealer
@@ -77,7 +85,18 @@ public class Player implements Runnable {
     /**
      * a flag to see if the player's thread on freeze
      */
-    private boolean isFreeze = false;
+    private volatile boolean isFreeze = false;
+
+    /**
+     * the time the player placed the first token of its current selection
+     */
+    private long selectionStartNanos;
+
+    /**
+     * the time the key completing the current claim was pressed (0 if there is no claim waiting for a verdict)
+     */
+    private long claimPressNanos;
+
     /**
      * in order not to make magic numbers
      */
@@ -98,11 +117,11 @@ public class Player implements Runnable {
         this.table = table;
         this.id = id;
         this.human = human;
-        this.incomingActions = new LinkedBlockingQueue<>();
         featureSize = env.config.featureSize;
+        this.incomingActions = new InputBuffer(env.config.inputBufferCapacity, env.config.inputRatePerSecond, env.config.inputBurst,
+                env.clock);
         this.playerTokens = new LinkedBlockingQueue<>(featureSize);
         this.dealer = dealer;
-        this.score = 0;
 
     }
 
@@ -116,65 +135,203 @@ public class Player implements Runnable {
         if (!human) createArtificialIntelligence();
 
         while (!terminate) {
-            // TODO implement main player loop
-            if (!dealer.cardDealing) {
-                isFreeze = false;
-                if (!incomingActions.isEmpty()) { // if there is a new key pressed
-                    int desiredToken = incomingActions.poll();
-                    if (table.isPlacedToken(id, desiredToken)) { // remove token
-                        removeToken(desiredToken);
-                        table.removeToken(id, desiredToken);
-                    } else if (playerTokens.size() < featureSize) { // place token
-                        table.placeToken(id, desiredToken);
-                        playerTokens.add(desiredToken);
-                        if (playerTokens.size() == featureSize) // if the current token is the third one
-                            dealer.setPlayersClaimSet(this.id);
-                    }
-                }
-                synchronized (this) {
-                    notifyAll();
+            int desiredToken;
+            long pressNanos;
+            try {
+                desiredToken = nextKeyPress(); // blocks until a key is pressed
+                pressNanos = incomingActions.lastStamp();
+            } catch (InterruptedException ignored) {
+                continue;
+            }
+            if (desiredToken < 0)
+                continue;
+            env.latencies.record(Stage.KEY_TO_DEQUEUE, System.nanoTime() - pressNanos);
+            env.metrics.increment(Counter.KEY_PRESSES);
+            if (dealer.cardDealing) { // the cards are being dealt, the key press is dropped
+                env.metrics.increment(Counter.KEYS_IGNORED_WHILE_DEALING);
+                continue;
+            }
+            if (env.recording != null) env.recording.input(env.clock.millis(), id, desiredToken);
+            if (table.isPlacedToken(id, desiredToken)) { // remove token
+                removeToken(desiredToken);
+                table.removeToken(id, desiredToken);
+                env.metrics.increment(Counter.TOKENS_REMOVED);
+            } else if (playerTokens.size() < featureSize) { // place token
+                long placeStart = System.nanoTime();
+                if (playerTokens.isEmpty())
+                    selectionStartNanos = placeStart;
+                table.placeToken(id, desiredToken);
+                playerTokens.add(desiredToken);
+                long placed = System.nanoTime();
+                env.latencies.record(Stage.PLACE_TOKEN, placed - placeStart);
+                stats.tokenPlaced(placed - pressNanos);
+                env.metrics.increment(Counter.TOKENS_PLACED);
+                if (playerTokens.size() == featureSize) { // if the current token is the third one
+                    claimPressNanos = pressNanos;
+                    claimSet();
                 }
-            } else
-                isFreeze = true;
+            }
         }
         if (!human) try {
-            aiThread.join();
+            if (env.clock.isSimulated()) env.clock.awaitUntil(() -> !aiThread.isAlive());
+            else aiThread.join();
         } catch (InterruptedException ignored) {
         }
+        env.logger.info("player " + id + " dropped " + droppedInputs() + " and coalesced " + coalescedInputs() + " key presses.");
         env.logger.info("thread " + Thread.currentThread().getName() + " terminated.");
     }
 
+    /**
+     * @return - the next key press, or -1 if there was none after all (a simulated clock woke the player for a press
+     * that was cancelled by a second press).
+     * @throws InterruptedException - if interrupted while waiting.
+     */
+    private int nextKeyPress() throws InterruptedException {
+        if (!env.clock.isSimulated())
+            return incomingActions.take();
+        env.clock.awaitUntil(() -> terminate || incomingActions.size() > 0);
+        return incomingActions.poll();
+    }
+
+    /**
+     * Presses a key for a computer player, waiting while the buffer is full.
+     *
+     * @param slot - the slot pressed.
+     * @throws InterruptedException - if interrupted while waiting.
+     */
+    private void pressKey(int slot) throws InterruptedException {
+        incomingActions.put(slot); // waits while the buffer is full or rate limited (on the game's clock)
+    }
+
+    /**
+     * Checks the cards the player marked and claims them as a set. Only legal sets are sent to the dealer (which
+     * checks them again if the table changed in the meantime), an illegal set is penalized right away.
+     */
+    private void claimSet() {
+        long start = System.nanoTime();
+        int version = table.version();
+        int[] slots = playerTokens.stream().mapToInt(Integer::intValue).toArray();
+        int[] cards = table.cardsTokenedByPlayer(slots);
+        if (cards == null) // a card was removed from under one of the tokens
+            return;
+        stats.claim();
+        env.metrics.increment(Counter.CLAIMS);
+        if (env.journal != null) env.journal.append(env.clock.millis(), GameJournal.Type.CLAIM, id, -1, -1, version);
+        Object verification = GameEvents.beginClaimVerification();
+        boolean legal = env.util.testSet(cards);
+        env.latencies.record(Stage.CLAIM_CHECK, System.nanoTime() - start);
+        GameEvents.commitClaimVerification(verification, id, slots, cards, version, table.version(), legal ? "sent" : "illegal");
+        if (legal)
+            dealer.setPlayersClaimSet(this.id, version);
+        else
+            penalty();
+    }
+
     /**
      * Creates an additional thread for an AI (computer) player. The main loop of this thread repeatedly generates
      * key presses. If the queue of key presses is full, the thread waits until it is not full.
      */
     private void createArtificialIntelligence() {
-        // note: this is a very, very smart AI (!)
-        aiThread = new Thread(() -> {
+        if (env.recording != null && env.recording.isReplay()) {
+            replayRecordedInputs();
+            return;
+        }
+        ComputerSkill skill = env.config.computerSkill;
+        aiThread = env.threads.start(() -> {
             env.logger.info("thread " + Thread.currentThread().getName() + " starting.");
+            Random random = new Random(env.config.seed * 31 + id); // each player its own choices, same every run
+            Queue<Integer> plan = new LinkedList<>();
             while (!terminate) {
-                // TODO implement player key press simulator
-                Random random = new Random();
-                int randomNumber = random.nextInt(env.config.tableSize);
-                this.keyPressed(randomNumber);
+                if (plan.isEmpty())
+                    plan = planKeyPresses(skill, random);
+                Integer planned = plan.poll(); // null if there is nothing to press
+                int slot = planned != null ? planned : -1;
+                if (random.nextDouble() < skill.errorRate) // a slip of the finger
+                    slot = random.nextInt(env.config.tableSize);
                 try {
-                    synchronized (this) {
-                        wait(); //TODO why the thread waits?
-                    }
+                    env.clock.sleep(Math.max(1, skill.reactionMillis)); // at least a millisecond, never busy wait
+                    if (slot >= 0 && !isFreeze && !dealer.cardDealing && table.slotToCard[slot] != null)
+                        pressKey(slot);
                 } catch (InterruptedException ignored) {
                 }
             }
             env.logger.info("thread " + Thread.currentThread().getName() + " terminated.");
         }, "computer-" + id);
-        aiThread.start();
+    }
+
+    /**
+     * Creates the thread of a computer player that replays the key presses recorded for the player, each at the time
+     * it was applied in the recorded game.
+     */
+    private void replayRecordedInputs() {
+        List<GameRecording.Input> inputs = env.recording.replayInputs(id);
+        aiThread = env.threads.start(() -> {
+            env.logger.info("thread " + Thread.currentThread().getName() + " starting.");
+            try {
+                for (GameRecording.Input input : inputs) {
+                    if (terminate) break;
+                    env.clock.sleep(input.time - env.clock.millis());
+                    pressKey(input.slot);
+                }
+            } catch (InterruptedException ignored) {
+            }
+            env.logger.info("thread " + Thread.currentThread().getName() + " terminated.");
+        }, "computer-" + id); // the same name as the computer player, for the same turns on a lockstep clock
+    }
+
+    /**
+     * Decides which slots the AI should press next. Either goes for a legal set that is on the table (depending on
+     * the skill level) or guesses random slots that have cards. Tokens that are not part of the target are removed
+     * first.
+     *
+     * @return - the slots to press, in order (empty if there is nothing to press, e.g. the table is empty).
+     */
+    private Queue<Integer> planKeyPresses(ComputerSkill skill, Random random) {
+        Queue<Integer> plan = new LinkedList<>();
+        if (skill == ComputerSkill.RANDOM) {
+            plan.add(random.nextInt(env.config.tableSize));
+            return plan;
+        }
+
+        List<int[]> sets = table.setsOnTable();
+        int[] target;
+        if (!sets.isEmpty() && random.nextDouble() < skill.setChance)
+            target = sets.get(random.nextInt(sets.size()));
+        else
+            target = randomOccupiedSlots(random);
+
+        List<Integer> tokens = new LinkedList<>(playerTokens);
+        for (int slot : tokens) // remove the tokens that are not part of the target
+            if (Arrays.stream(target).noneMatch(t -> t == slot))
+                plan.add(slot);
+        for (int slot : target)
+            if (!tokens.contains(slot))
+                plan.add(slot);
+        if (plan.isEmpty() && !tokens.isEmpty()) // the target is already marked (e.g. after a penalty), start over
+            plan.add(tokens.get(0));
+        return plan;
+    }
+
+    /**
+     * @return - up to featureSize different slots that have cards, at random (fewer late in the game, when the table
+     * has fewer cards).
+     */
+    private int[] randomOccupiedSlots(Random random) {
+        List<Integer> occupied = new ArrayList<>();
+        for (int slot = 0; slot < env.config.tableSize; slot++)
+            if (table.slotToCard[slot] != null)
+                occupied.add(slot);
+        Collections.shuffle(occupied, random);
+        return occupied.stream().limit(featureSize).mapToInt(Integer::intValue).toArray();
     }
 
     /**
      * Called when the game should be terminated.
      */
     public void terminate() {
-        // TODO implement
         terminate = true;
+        if (playerThread != null) env.clock.interrupt(playerThread); // wake up from waiting for key presses
+        if (aiThread != null) env.clock.interrupt(aiThread);
     }
 
     /**
@@ -183,14 +340,32 @@ public class Player implements Runnable {
      * @param slot - the slot corresponding to the key pressed.
      */
     public void keyPressed(int slot) {
-        // TODO implement
+        keyPressed(slot, System.nanoTime());
+    }
 
-        if (!isFreeze)
+    /**
+     * This method is called when a key is pressed. Never blocks.
+     *
+     * @param slot       - the slot corresponding to the key pressed.
+     * @param pressNanos - the time the key was pressed (System.nanoTime()).
+     */
+    public void keyPressed(int slot, long pressNanos) {
+        if (!isFreeze && !dealer.cardDealing)
             if (table.slotToCard[slot] != null) { // check that there is a card in the desired slot
-                incomingActions.add(slot);
+                incomingActions.offer(slot, pressNanos); // dropped if the buffer is full or the player presses too fast
             }
+    }
 
-
+    /**
+     * Records the time from the key press that completed the claim to its verdict.
+     */
+    private void verdict() {
+        if (claimPressNanos != 0) {
+            long keyToVerdict = System.nanoTime() - claimPressNanos;
+            stats.verdict(keyToVerdict);
+            env.latencies.record(Stage.KEY_TO_VERDICT, keyToVerdict);
+            claimPressNanos = 0;
+        }
     }
 
     /**
@@ -202,18 +377,17 @@ public class Player implements Runnable {
     public void point() {
         // TODO implement
         int ignored = table.countCards(); // this part is just for demonstration in the unit tests
-        env.ui.setScore(id, ++score);
-        long millis = env.config.pointFreezeMillis;
-        isFreeze = true;
-        for (long i = millis; i > 0; i = i - 1000) {
-            env.ui.setFreeze(id, i);
-            try {
-                Thread.sleep(1000);
-            } catch (InterruptedException e) {
-            }
+        verdict();
+        if (env.recording != null) env.recording.event(GameRecording.POINT, env.clock.millis(), id);
+        int score = stats.point(System.nanoTime() - selectionStartNanos);
+        env.metrics.increment(Counter.POINTS);
+        if (env.journal != null) {
+            env.journal.append(env.clock.millis(), GameJournal.Type.VERDICT, id, -1, -1, 1);
+            env.journal.append(env.clock.millis(), GameJournal.Type.SCORE, id, -1, -1, score);
         }
-        env.ui.setFreeze(id, 0);
-        isFreeze = false;
+        env.ui.setScore(id, score);
+        long millis = env.config.pointFreezeMillis;
+        freeze(millis, "point");
     }
 
     /**
@@ -221,35 +395,111 @@ public class Player implements Runnable {
      */
     public void penalty() {
         // TODO implement
+        verdict();
+        if (env.recording != null) env.recording.event(GameRecording.PENALTY, env.clock.millis(), id);
+        if (env.journal != null) env.journal.append(env.clock.millis(), GameJournal.Type.VERDICT, id, -1, -1, 0);
+        stats.penalty();
+        env.metrics.increment(Counter.PENALTIES);
         long millis = env.config.penaltyFreezeMillis;
+        freeze(millis, "penalty");
+    }
+
+    /**
+     * Freezes the player, counting the time down on the ui.
+     *
+     * @param millis - the freeze time in milliseconds.
+     * @param reason - point or penalty.
+     */
+    private void freeze(long millis, String reason) {
+        Object event = GameEvents.beginFreeze();
         isFreeze = true;
         for (long i = millis; i > 0; i = i - 1000) {
             env.ui.setFreeze(id, i);
             try {
-                Thread.sleep(1000);
-            } catch (InterruptedException e) {
+                env.clock.sleep(1000);
+            } catch (InterruptedException e) { // only the end of the game interrupts a player, do not keep it waiting
+                break;
             }
         }
         env.ui.setFreeze(id, 0);
         isFreeze = false;
+        GameEvents.commitFreeze(event, id, reason, millis);
+    }
+
+    /**
+     * @return - the thread of the computer player (null if the player is human or did not start yet).
+     */
+    Thread computerThread() {
+        return aiThread;
     }
 
     public int score() {
-        return score;
+        return stats.score();
+    }
+
+    /**
+     * @return - the statistics of the player (safe to read from any thread).
+     */
+    public PlayerStats stats() {
+        return stats;
+    }
+
+    /**
+     * @return - the number of key presses dropped because the input buffer was full or rate limited.
+     */
+    public long droppedInputs() {
+        return incomingActions.dropped();
+    }
+
+    /**
+     * @return - the number of key presses that cancelled each other out (the same slot pressed twice in a row).
+     */
+    public long coalescedInputs() {
+        return incomingActions.coalesced();
+    }
+
+    /**
+     * @return - the number of key presses waiting in the input buffer.
+     */
+    int pendingInputs() {
+        return incomingActions.size();
     }
 
     public LinkedBlockingQueue<Integer> getPlayerTokens() {
         return playerTokens;
     }
 
+    /**
+     * @return - the slots the player has tokens on, in the order they were placed.
+     */
+    int[] tokens() {
+        return playerTokens.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * Restores the tokens, the score and the penalties of the player from a snapshot (before the player thread starts).
+     * A full set of tokens was a claim in flight and is dropped.
+     */
+    void restore(int[] tokens, int score, long penalties) {
+        stats.restore(score, penalties);
+        env.ui.setScore(id, score);
+        if (tokens.length >= featureSize)
+            return;
+        for (int slot : tokens)
+            if (table.slotToCard[slot] != null) {
+                table.placeToken(id, slot);
+                playerTokens.add(slot);
+            }
+    }
+
     public void resetQueue() {
         playerTokens.clear(); //clear key input queue
     }
 
     public void removeToken(int slot) {
         LinkedBlockingQueue<Integer> temp = new LinkedBlockingQueue<Integer>(featureSize);
-        while (!playerTokens.isEmpty()) {
-            Integer current = playerTokens.poll();
+        Integer current;
+        while ((current = playerTokens.poll()) != null) { // the dealer may empty the queue at the same time
             if (current != slot) {
                 temp.add(current);
             }
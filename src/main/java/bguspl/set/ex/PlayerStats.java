@@ -0,0 +1,174 @@
+package bguspl.set.ex;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The statistics of a single player.
+ * All the updates happen on the player thread, so the counters are atomics guarded by a sequence number (a seqlock):
+ * the player never blocks, and a reader retries until it gets a snapshot no update ran in the middle of.
+ */
+public class PlayerStats {
+
+    /**
+     * Odd while an update is in progress.
+     */
+    private final AtomicLong sequence = new AtomicLong();
+
+    private final AtomicInteger score = new AtomicInteger();
+    private final AtomicLong penalties = new AtomicLong();
+    private final AtomicLong claims = new AtomicLong();
+    private final AtomicLong tokensPlaced = new AtomicLong();
+
+    /**
+     * The total time (in nanoseconds) it took the player to mark the sets it scored with.
+     */
+    private final AtomicLong timeToSetNanos = new AtomicLong();
+
+    /**
+     * The total time (in nanoseconds) from a key press to its token on the table, and from the key press that
+     * completed a set to the verdict on it (point or penalty), and the number of verdicts.
+     */
+    private final AtomicLong keyToTokenNanos = new AtomicLong();
+    private final AtomicLong keyToVerdictNanos = new AtomicLong();
+    private final AtomicLong verdicts = new AtomicLong();
+
+    /**
+     * Records a point.
+     *
+     * @param timeToSetNanos - the time it took to mark the set.
+     * @return - the new score.
+     */
+    int point(long timeToSetNanos) {
+        sequence.incrementAndGet();
+        int newScore = score.incrementAndGet();
+        this.timeToSetNanos.addAndGet(timeToSetNanos);
+        sequence.incrementAndGet();
+        return newScore;
+    }
+
+    /**
+     * Sets the score and the penalties of a restored game.
+     */
+    void restore(int score, long penalties) {
+        sequence.incrementAndGet();
+        this.score.set(score);
+        this.penalties.set(penalties);
+        sequence.incrementAndGet();
+    }
+
+    void penalty() {
+        sequence.incrementAndGet();
+        penalties.incrementAndGet();
+        sequence.incrementAndGet();
+    }
+
+    void claim() {
+        sequence.incrementAndGet();
+        claims.incrementAndGet();
+        sequence.incrementAndGet();
+    }
+
+    /**
+     * Records a token placed.
+     *
+     * @param keyToTokenNanos - the time from the key press to the token on the table.
+     */
+    void tokenPlaced(long keyToTokenNanos) {
+        sequence.incrementAndGet();
+        tokensPlaced.incrementAndGet();
+        this.keyToTokenNanos.addAndGet(keyToTokenNanos);
+        sequence.incrementAndGet();
+    }
+
+    /**
+     * Records a verdict on a claimed set.
+     *
+     * @param keyToVerdictNanos - the time from the key press that completed the set to the verdict.
+     */
+    void verdict(long keyToVerdictNanos) {
+        sequence.incrementAndGet();
+        verdicts.incrementAndGet();
+        this.keyToVerdictNanos.addAndGet(keyToVerdictNanos);
+        sequence.incrementAndGet();
+    }
+
+    /**
+     * @return - the current score.
+     */
+    public int score() {
+        return score.get();
+    }
+
+    /**
+     * @return - a consistent copy of all the statistics. Never blocks the player.
+     */
+    public Snapshot snapshot() {
+        while (true) {
+            long before = sequence.get();
+            if ((before & 1) == 0) {
+                Snapshot snapshot = new Snapshot(score.get(), penalties.get(), claims.get(), tokensPlaced.get(),
+                        timeToSetNanos.get(), keyToTokenNanos.get(), verdicts.get(), keyToVerdictNanos.get());
+                if (sequence.get() == before)
+                    return snapshot;
+            }
+            Thread.yield();
+        }
+    }
+
+    /**
+     * An immutable copy of the statistics of a player.
+     */
+    public static class Snapshot {
+
+        public final int score;
+        public final long penalties;
+        public final long claims;
+        public final long tokensPlaced;
+        public final long timeToSetNanos;
+        public final long keyToTokenNanos;
+        public final long verdicts;
+        public final long keyToVerdictNanos;
+
+        Snapshot(int score, long penalties, long claims, long tokensPlaced, long timeToSetNanos,
+                 long keyToTokenNanos, long verdicts, long keyToVerdictNanos) {
+            this.score = score;
+            this.penalties = penalties;
+            this.claims = claims;
+            this.tokensPlaced = tokensPlaced;
+            this.timeToSetNanos = timeToSetNanos;
+            this.keyToTokenNanos = keyToTokenNanos;
+            this.verdicts = verdicts;
+            this.keyToVerdictNanos = keyToVerdictNanos;
+        }
+
+        /**
+         * @return - the average time (in milliseconds) it took to mark a set the player scored with (0 if none).
+         */
+        public double averageTimeToSetMillis() {
+            return score == 0 ? 0 : timeToSetNanos / 1_000_000.0 / score;
+        }
+
+        /**
+         * @return - the average time (in microseconds) from a key press to its token on the table (0 if none).
+         */
+        public double averageKeyToTokenMicros() {
+            return tokensPlaced == 0 ? 0 : keyToTokenNanos / 1_000.0 / tokensPlaced;
+        }
+
+        /**
+         * @return - the average time (in milliseconds) from the key press completing a set to the verdict (0 if none).
+         */
+        public double averageKeyToVerdictMillis() {
+            return verdicts == 0 ? 0 : keyToVerdictNanos / 1_000_000.0 / verdicts;
+        }
+
+        @Override
+        public String toString() {
+            return "score " + score + ", penalties " + penalties + ", claims " + claims + ", tokens " + tokensPlaced
+                    + ", average time to set " + Math.round(averageTimeToSetMillis()) + "ms"
+                    + ", key to token " + Math.round(averageKeyToTokenMicros()) + "us"
+                    + ", key to verdict " + Math.round(averageKeyToVerdictMillis()) + "ms";
+        }
+    }
+}
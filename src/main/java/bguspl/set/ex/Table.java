@@ -1,8 +1,13 @@
 package bguspl.set.ex;
 
 import bguspl.set.Env;
+import bguspl.set.GameEvents;
+import bguspl.set.GameJournal;
+import bguspl.set.GameRecording;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
 import java.util.Queue;
@@ -37,6 +42,16 @@ public class Table {
      */
     protected int[][] tokendSlots;
 
+    /**
+     * incremented every time a card is placed on or removed from the table
+     */
+    private volatile int version = 0;
+
+    /**
+     * the legal sets found on the table for the version they were computed for
+     */
+    private volatile SetIndex setIndex = new SetIndex(-1, Collections.emptyList());
+
 
     /**
      * Constructor for testing.
@@ -74,13 +89,16 @@ public class Table {
      * This method prints all possible legal sets of cards that are currently on the table.
      */
     public void hints() {
+        Object event = GameEvents.beginHints();
         List<Integer> deck = Arrays.stream(slotToCard).filter(Objects::nonNull).collect(Collectors.toList());
-        env.util.findSets(deck, Integer.MAX_VALUE).forEach(set -> {
+        List<int[]> sets = env.util.findSets(deck, Integer.MAX_VALUE);
+        sets.forEach(set -> {
             StringBuilder sb = new StringBuilder().append("Hint: Set found: ");
             List<Integer> slots = Arrays.stream(set).mapToObj(card -> cardToSlot[card]).sorted().collect(Collectors.toList());
             int[][] features = env.util.cardsToFeatures(set);
             System.out.println(sb.append("slots: ").append(slots).append(" features: ").append(Arrays.deepToString(features)));
         });
+        GameEvents.commitHints(event, sets.size());
     }
 
     /**
@@ -105,13 +123,16 @@ public class Table {
      */
     public void placeCard(int card, int slot) {
         try {
-            Thread.sleep(env.config.tableDelayMillis);
+            env.clock.sleep(env.config.tableDelayMillis);
         } catch (InterruptedException ignored) {
-
+            Thread.currentThread().interrupt(); // keep the wake up call (e.g. of a player claiming a set to the dealer)
         }
 
         cardToSlot[card] = slot;
         slotToCard[slot] = card;
+        version++;
+        if (env.recording != null) env.recording.event(GameRecording.DEAL, env.clock.millis(), card, slot);
+        if (env.journal != null) env.journal.append(env.clock.millis(), GameJournal.Type.DEAL, -1, slot, card, 0);
 
         // TODO implement
         env.ui.placeCard(card, slot);
@@ -124,14 +145,19 @@ public class Table {
      */
     public void removeCard(int slot) {
         try {
-            Thread.sleep(env.config.tableDelayMillis);
+            env.clock.sleep(env.config.tableDelayMillis);
         } catch (InterruptedException ignored) {
+            Thread.currentThread().interrupt();
         }
 
         // TODO implement
         if (slotToCard[slot] != null) {
+            if (env.journal != null)
+                env.journal.append(env.clock.millis(), GameJournal.Type.REMOVE, -1, slot, slotToCard[slot], 0);
             cardToSlot[slotToCard[slot]] = null;
             slotToCard[slot] = null;
+            version++;
+            if (env.recording != null) env.recording.event(GameRecording.REMOVE, env.clock.millis(), slot);
             env.ui.removeCard(slot);
         }
     }
@@ -146,6 +172,7 @@ public class Table {
         // TODO implement
         env.ui.placeToken(player, slot);
         tokendSlots[player][slot] = 1;
+        if (env.journal != null) env.journal.append(env.clock.millis(), GameJournal.Type.TOKEN_PLACED, player, slot, card(slot), 0);
     }
 
     /**
@@ -161,18 +188,30 @@ public class Table {
             return false;
         env.ui.removeToken(player, slot);
         tokendSlots[player][slot] = 0;
+        if (env.journal != null) env.journal.append(env.clock.millis(), GameJournal.Type.TOKEN_REMOVED, player, slot, card(slot), 0);
         return true;
     }
 
-    //this function return the cards as the slot the player chose (in order to check set)
+    //this function return the cards as the slot the player chose (in order to check set), null if a slot is empty
     public int[] cardsTokenedByPlayer(int[] slots) {
         int[] cards = new int[slots.length];
         for (int i = 0; i < cards.length; i++) {
-            cards[i] = slotToCard[slots[i]];
+            Integer card = slotToCard[slots[i]];
+            if (card == null)
+                return null;
+            cards[i] = card;
         }
         return cards;
     }
 
+    /**
+     * @return - the card in the slot, or -1 if the slot is empty.
+     */
+    private int card(int slot) {
+        Integer card = slotToCard[slot];
+        return card != null ? card : -1;
+    }
+
     public boolean isPlacedToken (int playerId, int slot){
         if(tokendSlots[playerId][slot] == 0)
             return false;
@@ -188,4 +227,110 @@ public class Table {
             }
         }
     }
+
+    /**
+     * @return - a copy of the cards on the table by slot (-1 for an empty slot).
+     */
+    int[] cards() {
+        int[] cards = new int[slotToCard.length];
+        for (int slot = 0; slot < cards.length; slot++)
+            cards[slot] = card(slot);
+        return cards;
+    }
+
+    /**
+     * Puts the cards of a snapshot on the table, at once (without the table delay).
+     *
+     * @param cards   - the card in each slot (-1 for an empty slot).
+     * @param version - the table version of the snapshot.
+     */
+    void restore(int[] cards, int version) {
+        for (int slot = 0; slot < cards.length; slot++)
+            if (cards[slot] >= 0) {
+                slotToCard[slot] = cards[slot];
+                cardToSlot[cards[slot]] = slot;
+                env.ui.placeCard(cards[slot], slot);
+            }
+        this.version = version;
+    }
+
+    /**
+     * @return - the current table version (changes whenever a card is placed or removed).
+     */
+    public int version() {
+        return version;
+    }
+
+    /**
+     * Finds all the legal sets that are currently on the table. The result is cached per table version, so calling
+     * this repeatedly without the cards changing does not rescan the table.
+     *
+     * @return - a list of slot arrays, each one holds the slots of a legal set.
+     */
+    public List<int[]> setsOnTable() {
+        SetIndex index = setIndex;
+        int current = version;
+        if (index.version == current)
+            return index.sets;
+        List<int[]> sets = Collections.unmodifiableList(findSetSlots());
+        if (version == current) // the cards did not change while we were scanning
+            setIndex = new SetIndex(current, sets);
+        return sets;
+    }
+
+    private List<int[]> findSetSlots() {
+        List<int[]> sets = new ArrayList<>();
+        if (env.config.featureSize != 3) { // the third card is only determined by the other two when featureSize is 3
+            List<Integer> cards = Arrays.stream(slotToCard).filter(Objects::nonNull).collect(Collectors.toList());
+            nextSet:
+            for (int[] set : env.util.findSets(cards, Integer.MAX_VALUE)) {
+                int[] slots = new int[set.length];
+                for (int i = 0; i < set.length; i++) {
+                    Integer slot = cardToSlot[set[i]];
+                    if (slot == null) continue nextSet; // the table changed under us, the set is gone
+                    slots[i] = slot;
+                }
+                sets.add(slots);
+            }
+            return sets;
+        }
+        Integer[] cards = slotToCard.clone();
+        for (int first = 0; first < cards.length; first++) {
+            if (cards[first] == null) continue;
+            for (int second = first + 1; second < cards.length; second++) {
+                if (cards[second] == null) continue;
+                Integer third = cardToSlot[completeSet(cards[first], cards[second])];
+                if (third != null && third > second)
+                    sets.add(new int[]{first, second, third});
+            }
+        }
+        return sets;
+    }
+
+    /**
+     * @return - the only card that forms a legal set with the two given cards (featureSize 3 only).
+     */
+    private int completeSet(int first, int second) {
+        int size = env.config.featureSize;
+        int third = 0;
+        for (int weight = 1, i = 0; i < env.config.featureCount; i++, weight *= size) {
+            int a = first / weight % size;
+            int b = second / weight % size;
+            third += (2 * size - a - b) % size * weight;
+        }
+        return third;
+    }
+
+    /**
+     * the sets found on the table for a specific table version
+     */
+    private static class SetIndex {
+        final int version;
+        final List<int[]> sets;
+
+        SetIndex(int version, List<int[]> sets) {
+            this.version = version;
+            this.sets = sets;
+        }
+    }
 }
@@ -0,0 +1,72 @@
+package bguspl.set;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class AsyncLogHandlerTest {
+
+    static class CollectingHandler extends Handler {
+        final List<String> messages = new CopyOnWriteArrayList<>();
+        boolean closed = false;
+
+        @Override
+        public void publish(LogRecord record) {
+            messages.add(Main.formatParameters(record));
+        }
+
+        @Override
+        public void flush() {}
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+
+    @Test
+    void flush_AllRecordsWrittenInOrder() {
+        CollectingHandler target = new CollectingHandler();
+        AsyncLogHandler handler = new AsyncLogHandler(target, 16);
+
+        for (int i = 0; i < 10; i++)
+            handler.publish(new LogRecord(Level.INFO, "record " + i));
+        handler.flush();
+
+        assertEquals(10, target.messages.size());
+        for (int i = 0; i < 10; i++)
+            assertEquals("record " + i, target.messages.get(i));
+        handler.close();
+    }
+
+    @Test
+    void close_ParametersFormattedOnWriterThread() {
+        CollectingHandler target = new CollectingHandler();
+        AsyncLogHandler handler = new AsyncLogHandler(target);
+
+        LogRecord record = new LogRecord(Level.FINE, "updating countdown to {0} in slot {1}");
+        record.setParameters(new Object[]{58997L, 3});
+        handler.publish(record);
+        handler.close();
+
+        assertEquals("updating countdown to 58997 in slot 3", target.messages.get(0));
+        assertEquals(true, target.closed);
+    }
+
+    @Test
+    void formatParameters_ManyParametersAndStrayBraces() {
+        Object[] parameters = new Object[12];
+        for (int i = 0; i < parameters.length; i++)
+            parameters[i] = "p" + i;
+        LogRecord record = new LogRecord(Level.INFO, "{11} {0}{1} {x} {} {12} {3 {{10}} }");
+        record.setParameters(parameters);
+
+        assertEquals("p11 p0p1 {x} {} {12} {3 {p10} }", Main.formatParameters(record));
+    }
+}
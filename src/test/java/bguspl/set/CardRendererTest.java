@@ -0,0 +1,85 @@
+package bguspl.set;
+
+import org.junit.jupiter.api.Test;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+import java.util.Properties;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+class CardRendererTest {
+
+    private static final int WIDTH = 120;
+    private static final int HEIGHT = 80;
+
+    private int[] render(CardRenderer renderer, int card) {
+        BufferedImage image = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = image.createGraphics();
+        renderer.paint(g, card, WIDTH, HEIGHT);
+        g.dispose();
+        return image.getRGB(0, 0, WIDTH, HEIGHT, null, 0, WIDTH);
+    }
+
+    private CardRenderer renderer(int featureSize, int featureCount) {
+        Properties properties = new Properties();
+        properties.put("FeatureSize", Integer.toString(featureSize));
+        properties.put("FeatureCount", Integer.toString(featureCount));
+        Logger logger = Logger.getAnonymousLogger();
+        logger.setUseParentHandlers(false);
+        return new CardRenderer(new Config(logger, properties));
+    }
+
+    @Test
+    void paint_CardsDifferingInOneFeatureLookDifferent() {
+        CardRenderer renderer = renderer(3, 4);
+
+        int[] card = render(renderer, 0);
+        for (int weight = 1; weight < 81; weight *= 3) // change each feature in turn
+            assertFalse(Arrays.equals(card, render(renderer, weight)));
+    }
+
+    /**
+     * @return - which pixels differ from the card's background (the colour left of the shapes, in the card's middle row).
+     */
+    private boolean[] mask(int[] pixels) {
+        int background = pixels[(HEIGHT / 2) * WIDTH + WIDTH / 10];
+        boolean[] mask = new boolean[pixels.length];
+        for (int i = 0; i < pixels.length; i++)
+            mask[i] = pixels[i] != background;
+        return mask;
+    }
+
+    @Test
+    void paint_EveryShapeValueHasItsOwnShape() {
+        int featureSize = 12;
+        CardRenderer renderer = renderer(featureSize, 3); // the shape is the last feature, so card == shape value
+
+        boolean[][] masks = new boolean[featureSize][];
+        for (int shape = 0; shape < featureSize; shape++)
+            masks[shape] = mask(render(renderer, shape));
+        for (int a = 0; a < featureSize; a++)
+            for (int b = a + 1; b < featureSize; b++)
+                assertFalse(Arrays.equals(masks[a], masks[b]), "shapes " + a + " and " + b + " look the same");
+    }
+
+    @Test
+    void paint_LargeDeck() {
+        CardRenderer renderer = renderer(12, 8); // far more cards than there are card images for
+
+        int[] first = render(renderer, 0);
+        int[] last = render(renderer, (int) Math.pow(12, 8) - 1);
+        assertFalse(Arrays.equals(first, last));
+        assertFalse(Arrays.equals(render(renderer, 1), first)); // the last feature is shown as a number
+    }
+
+    @Test
+    void extraFeatures_WritesEveryValueInDecimal() {
+        assertEquals("0 9", CardRenderer.extraFeatures(new int[]{1, 2, 3, 4, 5, 6, 0, 9}));
+        assertEquals("36 135", CardRenderer.extraFeatures(new int[]{0, 0, 0, 0, 0, 0, 36, 135})); // past a digit
+        assertEquals("", CardRenderer.extraFeatures(new int[]{0, 1, 2, 3}));
+    }
+}
@@ -0,0 +1,52 @@
+package bguspl.set;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Properties;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GameHostTest {
+
+    @Test
+    void tryStart_KeepsTheGameThreadsWithinTheThreadBudget() throws InterruptedException {
+        Properties properties = new Properties();
+        properties.put("HumanPlayers", "0");
+        properties.put("ComputerPlayers", "2");
+        properties.put("LogLevel", "OFF");
+        Logger logger = Logger.getLogger("GameHostTest");
+        logger.setUseParentHandlers(false);
+        Config config = new Config(logger, properties);
+        // wall clock games, so they are still running when the third one is started
+        GameHost host = new GameHost(logger, config, 2 * GameHost.threadsPerGame(config), false);
+
+        GameHost.Game first = host.tryStart();
+        GameHost.Game second = host.tryStart();
+        assertNotNull(first);
+        assertNotNull(second);
+        assertNull(host.tryStart());
+        assertEquals(2, host.running().size());
+        int budget = 2 * GameHost.threadsPerGame(config);
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (host.threads() < budget && System.currentTimeMillis() < deadline) { // the dealers start the players
+            assertTrue(host.threads() <= budget);
+            Thread.sleep(10);
+        }
+        assertEquals(budget, host.threads());
+        assertNull(host.tryStart());
+        assertEquals(budget, host.threads());
+
+        host.stopAll();
+        assertFalse(first.isRunning());
+        assertFalse(second.isRunning());
+        assertEquals(0, host.running().size());
+        assertEquals(0, host.threads());
+        assertNotNull(host.tryStart());
+        host.stopAll();
+    }
+}
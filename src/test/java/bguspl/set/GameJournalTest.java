@@ -0,0 +1,100 @@
+package bguspl.set;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class GameJournalTest {
+
+    private static final Logger logger = Logger.getLogger("GameJournalTest");
+
+    @TempDir
+    Path dir;
+
+    private static List<String> readAll(Path file, long expectedSeed) throws IOException {
+        List<String> records = new ArrayList<>();
+        long seed = GameJournal.read(file, (time, type, player, slot, card, value) ->
+                records.add(time + " " + type + " " + player + " " + slot + " " + card + " " + value));
+        assertEquals(expectedSeed, seed);
+        return records;
+    }
+
+    @Test
+    void read_StreamsTheRecordsAppendedInOrder() throws IOException {
+        Path file = dir.resolve("game.journal");
+        GameJournal journal = GameJournal.open(logger, file, 42);
+        journal.append(100, GameJournal.Type.DEAL, -1, 3, 80, 0);
+        journal.append(200, GameJournal.Type.TOKEN_PLACED, 1, 3, 80, 0);
+        journal.append(300, GameJournal.Type.SCORE, 1, -1, -1, 7);
+        for (int i = 0; i < 10_000; i++) // more than the writer's buffer
+            journal.append(400 + i, GameJournal.Type.RESHUFFLE, -1, -1, -1, i);
+        journal.close();
+
+        List<String> records = readAll(file, 42);
+        assertEquals(10_003, records.size());
+        assertEquals("100 DEAL -1 3 80 0", records.get(0));
+        assertEquals("200 TOKEN_PLACED 1 3 80 0", records.get(1));
+        assertEquals("300 SCORE 1 -1 -1 7", records.get(2));
+        assertEquals("10399 RESHUFFLE -1 -1 -1 9999", records.get(10_002));
+    }
+
+    @Test
+    void read_IgnoresARecordCutShort() throws IOException {
+        Path file = dir.resolve("cut.journal");
+        GameJournal journal = GameJournal.open(logger, file, 7);
+        journal.append(1, GameJournal.Type.CLAIM, 0, -1, -1, 5);
+        journal.append(2, GameJournal.Type.VERDICT, 0, -1, -1, 1);
+        journal.close();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.truncate(GameJournal.HEADER_BYTES + GameJournal.RECORD_BYTES + 10);
+        }
+
+        List<String> records = readAll(file, 7);
+        assertEquals(1, records.size());
+        assertEquals("1 CLAIM 0 -1 -1 5", records.get(0));
+    }
+
+    @Test
+    void read_KeepsPlayerIdsBeyondAByte() throws IOException {
+        Path file = dir.resolve("players.journal");
+        GameJournal journal = GameJournal.open(logger, file, 3);
+        journal.append(1, GameJournal.Type.TOKEN_PLACED, 200, 4, 11, 0);
+        journal.append(2, GameJournal.Type.SCORE, 70_000, -1, -1, 1);
+        journal.close();
+
+        List<String> records = readAll(file, 3);
+        assertEquals("1 TOKEN_PLACED 200 4 11 0", records.get(0));
+        assertEquals("2 SCORE 70000 -1 -1 1", records.get(1));
+    }
+
+    @Test
+    void read_RejectsAnOlderFormat() throws IOException {
+        Path file = dir.resolve("old.journal");
+        ByteBuffer header = ByteBuffer.allocate(GameJournal.HEADER_BYTES);
+        header.putInt(GameJournal.MAGIC).putInt(1).putLong(3).flip();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            channel.write(header);
+        }
+
+        assertThrows(IOException.class, () -> readAll(file, 3));
+    }
+
+    @Test
+    void fileOfGame_NumbersTheFileBeforeItsExtension() {
+        assertEquals("logs/game-7.journal", GameJournal.fileOfGame("logs/game.journal", 7));
+        assertEquals("logs.d/game-7", GameJournal.fileOfGame("logs.d/game", 7));
+        assertEquals("", GameJournal.fileOfGame("", 7));
+        assertEquals("logs/game-7-replay.journal", GameJournal.fileOfGame("logs/game.journal", "7-replay"));
+    }
+}
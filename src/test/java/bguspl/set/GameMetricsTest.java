@@ -0,0 +1,53 @@
+package bguspl.set;
+
+import org.junit.jupiter.api.Test;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class GameMetricsTest {
+
+    private static final Logger logger = Logger.getLogger("GameMetricsTest");
+
+    @Test
+    void countersAndGauges_AreReadAsRecorded() {
+        GameMetrics metrics = new GameMetrics();
+        metrics.increment(GameMetrics.Counter.RESHUFFLES);
+        metrics.increment(GameMetrics.Counter.RESHUFFLES);
+        metrics.increment(GameMetrics.Counter.SEMAPHORE_WAITS);
+        metrics.increment(GameMetrics.Counter.SEMAPHORE_WAITS);
+        metrics.add(GameMetrics.Counter.SEMAPHORE_WAIT_NANOS, 5_000);
+        int[] deck = {81};
+        metrics.gauge(GameMetrics.Gauge.DECK_SIZE, () -> deck[0]);
+
+        assertEquals(2, metrics.getReshuffles());
+        assertEquals(2.5, metrics.getAverageSemaphoreWaitMicros(), 1e-9);
+        assertEquals(81, metrics.getDeckSize());
+        deck[0] = 69;
+        assertEquals(69, metrics.getDeckSize()); // read when asked for
+        assertEquals(0, metrics.getSetsOnTable()); // not set
+    }
+
+    @Test
+    void register_ExposesTheMetricsOverJmxUntilClosed() throws Exception {
+        GameMetrics metrics = new GameMetrics();
+        metrics.increment(GameMetrics.Counter.CLAIMS);
+        metrics.register(logger);
+        ObjectName name = metrics.name();
+        assertNotNull(name);
+
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        assertEquals(1L, server.getAttribute(name, "Claims"));
+
+        metrics.close();
+        assertNull(metrics.name());
+        assertFalse(server.isRegistered(name));
+    }
+}
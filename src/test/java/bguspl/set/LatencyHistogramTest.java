@@ -0,0 +1,38 @@
+package bguspl.set;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LatencyHistogramTest {
+
+    private static void assertClose(long expected, long actual) {
+        assertTrue(Math.abs(expected - actual) <= expected / 32, "expected about " + expected + " but was " + actual);
+    }
+
+    @Test
+    void percentile_WithinBucketPrecision() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long micros = 1; micros <= 1000; micros++)
+            histogram.record(micros * 1000);
+
+        assertEquals(1000, histogram.count());
+        assertEquals(1_000_000, histogram.max());
+        assertClose(500_000, histogram.percentile(50));
+        assertClose(990_000, histogram.percentile(99));
+        assertClose(999_000, histogram.percentile(99.9));
+        assertEquals(1_000_000, histogram.percentile(100));
+    }
+
+    @Test
+    void percentile_EmptyAndSmallValues() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.percentile(99));
+
+        histogram.record(-5);
+        histogram.record(3);
+        assertEquals(0, histogram.percentile(50));
+        assertEquals(3, histogram.percentile(100));
+    }
+}
@@ -0,0 +1,60 @@
+package bguspl.set;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LockstepClockTest {
+
+    @Test
+    void sleep_ThreadsRunOneAtATimeInTimeAndNameOrder() throws InterruptedException {
+        LockstepClock clock = new LockstepClock();
+        GameThreads threads = new GameThreads(Logger.getLogger("LockstepClockTest"), false, clock);
+        List<String> steps = Collections.synchronizedList(new ArrayList<>());
+        List<Thread> started = Collections.synchronizedList(new ArrayList<>());
+        Thread starter = threads.start(() -> { // holds the turn, as the dealer does, so b cannot run before a is known
+            for (String name : new String[]{"b", "a"})
+                started.add(threads.start(() -> {
+                    try {
+                        for (int i = 0; i < 3; i++) {
+                            steps.add(clock.millis() + name);
+                            clock.sleep(name.equals("a") ? 1000 : 1500);
+                        }
+                    } catch (InterruptedException ignored) {
+                    }
+                }, name));
+        }, "starter");
+        starter.join();
+        for (Thread thread : started)
+            thread.join();
+
+        assertEquals(Arrays.asList("0a", "0b", "1000a", "1500b", "2000a", "3000b"), steps);
+    }
+
+    @Test
+    void playGame_SameSeedPlaysTheSameGame() throws InterruptedException {
+        Logger logger = Logger.getLogger("LockstepClockTest");
+        Properties properties = Simulation.simulationProperties(logger);
+        properties.setProperty("Seed", "42");
+        Config config = new Config(logger, properties);
+
+        GameRecording first = GameRecording.record();
+        Simulation.playGame(logger, config, new UtilImpl(config), true, 3_600_000, first);
+        GameRecording second = GameRecording.record();
+        Simulation.playGame(logger, config, new UtilImpl(config), true, 3_600_000, second);
+        GameRecording replay = GameRecording.replay(first);
+        Simulation.playGame(logger, config, new UtilImpl(config), true, 3_600_000, replay);
+
+        assertTrue(first.events() > 0);
+        assertEquals(first.fingerprint(), second.fingerprint());
+        assertEquals(first.fingerprint(), replay.fingerprint());
+    }
+}
@@ -0,0 +1,65 @@
+package bguspl.set;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class LogAnalyzerTest {
+
+    private static final String LOG = String.join("\n",
+            "[23:59:58.000] [INFO   ] thread dealer starting.",
+            "[23:59:58.100] [SEVERE ] placing card 41 in slot 0",
+            "[23:59:58.200] [SEVERE ] placing card 57 in slot 1",
+            "[23:59:59.000] [SEVERE ] updating countdown to 60000",
+            "[00:00:00.010] [SEVERE ] updating countdown to 58990",
+            "[00:00:01.030] [SEVERE ] updating countdown to 57970",
+            "[00:00:01.500] [SEVERE ] setting player 2 score to 1",
+            "[00:00:01.500] [SEVERE ] setting player 2 freeze to 1000",
+            "[00:00:01.500] [SEVERE ] updating countdown to 60000",
+            "[00:00:02.500] [SEVERE ] setting player 2 freeze to 0",
+            "[00:00:02.510] [SEVERE ] updating countdown to 58990",
+            "[00:00:03.000] [SEVERE ] setting player 1 freeze to 3000",
+            "[00:00:04.000] [SEVERE ] setting player 1 freeze to 2000",
+            "[00:00:05.000] [SEVERE ] setting player 1 freeze to 1000",
+            "[00:00:06.000] [SEVERE ] setting player 1 freeze to 0",
+            "[00:00:07.500] [SEVERE ] setting player 1 score to 1",
+            "[00:00:07.500] [SEVERE ] setting player 1 freeze to 0",
+            "[00:00:08.000] [SEVERE ] setting player 2 freeze to 0",
+            "[00:00:09.000] [INFO   ] announcing winner(s): player 1, player 2") + "\n";
+
+    @TempDir
+    Path dir;
+
+    private void assertStats(LogAnalyzer.Stats stats) {
+        assertEquals(19, stats.lines);
+        assertEquals(2, stats.cardsDealt);
+        assertEquals(2, stats.sets);
+        assertEquals(2, stats.penalties); // a freeze of 3 seconds and one of none, neither after a score
+        assertEquals(1, stats.setIntervals);
+        assertEquals(6000, stats.setIntervalSumMillis); // across midnight
+        assertEquals(1, stats.ticks); // the pairs with a reset countdown are not ticks
+        assertEquals(20, stats.tickJitterMaxMillis);
+    }
+
+    @Test
+    void analyze_ComputesTheGameStatistics() throws IOException {
+        Path file = dir.resolve("game.log");
+        Files.write(file, LOG.getBytes(StandardCharsets.US_ASCII));
+
+        assertStats(LogAnalyzer.analyze(file));
+    }
+
+    @Test
+    void analyze_LinesCutBetweenMappedWindowsAreParsedWhole() throws IOException {
+        Path file = dir.resolve("game.log");
+        Files.write(file, LOG.replace("\n", "\r\n").getBytes(StandardCharsets.US_ASCII));
+
+        assertStats(LogAnalyzer.analyze(file, 100));
+    }
+}
@@ -0,0 +1,27 @@
+package bguspl.set;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Properties;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SimulationTest {
+
+    private static final Logger logger = Logger.getLogger("SimulationTest");
+
+    @Test
+    void playGame_OnAVirtualClockPlaysTheGameToTheEnd() throws InterruptedException {
+        Properties properties = Simulation.simulationProperties(logger);
+        properties.setProperty("Seed", "42");
+        properties.setProperty("ComputerSkill", "MEDIUM");
+        Config config = new Config(logger, properties);
+
+        Simulation.GameResult result = Simulation.playGame(logger, config, new UtilImpl(config), false, 3_600_000, null);
+
+        assertFalse(result.timedOut, result.toString());
+        assertTrue(result.sets() > 0, result.toString());
+    }
+}
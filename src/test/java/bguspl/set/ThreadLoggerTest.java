@@ -0,0 +1,82 @@
+package bguspl.set;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ThreadLoggerTest {
+
+    private static final Logger logger = Logger.getLogger("ThreadLoggerTest");
+
+    private static ThreadLogger.Usage usageOf(GameThreads threads, String name) {
+        for (ThreadLogger.Usage usage : threads.usages())
+            if (usage.name.equals(name))
+                return usage;
+        return null;
+    }
+
+    @Test
+    void usages_RecordTheResourcesOfTheThreadsOfTheGame() throws InterruptedException {
+        GameThreads threads = new GameThreads(logger, false);
+        Thread spinner = threads.start(() -> {
+            long end = System.nanoTime() + 50_000_000;
+            long sum = 0;
+            while (System.nanoTime() < end)
+                sum += new int[16].length; // allocates as well
+            if (sum == 42) System.out.println(sum);
+        }, "test-spinner");
+        Thread sleeper = threads.start(() -> {
+            try {
+                Thread.sleep(100);
+            } catch (InterruptedException ignored) {
+            }
+        }, "test-sleeper");
+        spinner.join();
+        sleeper.join();
+
+        ThreadLogger.Usage spun = usageOf(threads, "test-spinner");
+        ThreadLogger.Usage slept = usageOf(threads, "test-sleeper");
+        assertNotNull(spun);
+        assertNotNull(slept);
+        assertFalse(spun.running);
+        assertTrue(spun.wallNanos >= 50_000_000);
+        assertTrue(spun.cpuNanos > 0);
+        assertTrue(slept.wallNanos >= 100_000_000);
+        assertFalse(slept.isBusy());
+        String summary = threads.usageSummary();
+        assertTrue(summary.contains("test-spinner"));
+        assertTrue(summary.contains("test-sleeper"));
+
+        assertEquals(0, new GameThreads(logger, false).usages().size()); // another game has its own threads
+    }
+
+    @Test
+    void usages_SampleTheThreadsStillRunning() throws InterruptedException {
+        GameThreads threads = new GameThreads(logger, false);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch stop = new CountDownLatch(1);
+        Thread hung = threads.start(() -> {
+            started.countDown();
+            try {
+                stop.await();
+            } catch (InterruptedException ignored) {
+            }
+        }, "test-hung");
+        started.await();
+
+        ThreadLogger.Usage usage = usageOf(threads, "test-hung");
+        assertNotNull(usage);
+        assertTrue(usage.running);
+        assertTrue(threads.usageSummary().contains("still running"));
+
+        stop.countDown();
+        hung.join();
+        assertFalse(usageOf(threads, "test-hung").running);
+    }
+}
@@ -0,0 +1,43 @@
+package bguspl.set;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TimerTextTest {
+
+    @Test
+    void countdown_WholeSeconds() {
+        TimerText text = new TimerText();
+
+        assertTrue(text.countdown(58997, false));
+        assertEquals("Remaining Time: 58", text.text());
+    }
+
+    @Test
+    void countdown_HundredthsWhenWarning() {
+        TimerText text = new TimerText();
+
+        text.countdown(4567, true);
+        assertEquals("Remaining Time: 4.57", text.text());
+        text.countdown(5, true);
+        assertEquals("Remaining Time: 0.01", text.text());
+        text.countdown(-20, true);
+        assertEquals("Remaining Time: -0.02", text.text());
+    }
+
+    @Test
+    void countdown_UnchangedTextNotUpdated() {
+        TimerText text = new TimerText();
+
+        assertTrue(text.countdown(15999, false));
+        String shown = text.text();
+        assertFalse(text.countdown(15000, false));
+        assertEquals(shown, text.text());
+        assertTrue(text.countdown(14999, false));
+        assertTrue(text.elapsed(13999));
+        assertEquals("Elapsed time: 13", text.text());
+    }
+}
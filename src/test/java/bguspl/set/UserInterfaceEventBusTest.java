@@ -0,0 +1,74 @@
+package bguspl.set;
+
+import org.junit.jupiter.api.Test;
+
+import java.awt.*;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class UserInterfaceEventBusTest {
+
+    /**
+     * Records the calls (and checks they are made on the Event Dispatch Thread).
+     */
+    static class RecordingUserInterface implements UserInterface {
+        final List<String> calls = new CopyOnWriteArrayList<>();
+
+        private void record(String call) {
+            assertTrue(EventQueue.isDispatchThread());
+            calls.add(call);
+        }
+
+        @Override
+        public void placeCard(int card, int slot) { record("placeCard " + card + " " + slot); }
+        @Override
+        public void removeCard(int slot) { record("removeCard " + slot); }
+        @Override
+        public void placeToken(int player, int slot) { record("placeToken " + player + " " + slot); }
+        @Override
+        public void removeTokens() { record("removeTokens"); }
+        @Override
+        public void removeTokens(int slot) { record("removeTokens " + slot); }
+        @Override
+        public void removeToken(int player, int slot) { record("removeToken " + player + " " + slot); }
+        @Override
+        public void setCountdown(long millies, boolean warn) { record("setCountdown " + millies + " " + warn); }
+        @Override
+        public void setElapsed(long millies) { record("setElapsed " + millies); }
+        @Override
+        public void setFreeze(int player, long millies) { record("setFreeze " + player + " " + millies); }
+        @Override
+        public void setScore(int player, int score) { record("setScore " + player + " " + score); }
+        @Override
+        public void announceWinner(int[] players) { record("announceWinner " + players.length); }
+        @Override
+        public void dispose() { record("dispose"); }
+    }
+
+    @Test
+    void dispose_OrderedEventsKeptAndValuesCoalesced() throws Exception {
+        RecordingUserInterface recording = new RecordingUserInterface();
+        UserInterfaceEventBus bus = new UserInterfaceEventBus(recording, 2);
+
+        bus.placeCard(7, 0);
+        bus.placeToken(1, 0);
+        for (long millies = 5000; millies >= 4000; millies -= 10)
+            bus.setCountdown(millies, true);
+        bus.setScore(1, 1);
+        bus.setScore(1, 2);
+        bus.removeCard(0);
+        bus.dispose();
+        EventQueue.invokeAndWait(() -> {}); // wait for the dispose to run
+
+        List<String> calls = recording.calls;
+        assertTrue(calls.indexOf("placeCard 7 0") < calls.indexOf("placeToken 1 0"));
+        assertTrue(calls.indexOf("placeToken 1 0") < calls.indexOf("removeCard 0"));
+        assertTrue(calls.contains("setCountdown 4000 true"));
+        assertTrue(calls.contains("setScore 1 2"));
+        assertEquals(calls.size() - 1, calls.indexOf("dispose"));
+        assertTrue(calls.stream().filter(call -> call.startsWith("setCountdown")).count() < 100);
+    }
+}
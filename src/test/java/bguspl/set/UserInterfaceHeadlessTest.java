@@ -0,0 +1,52 @@
+package bguspl.set;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Properties;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class UserInterfaceHeadlessTest {
+
+    private UserInterfaceHeadless headless() {
+        Properties properties = new Properties();
+        properties.put("ComputerPlayers", "2");
+        properties.put("HumanPlayers", "0");
+        Logger logger = Logger.getAnonymousLogger();
+        logger.setUseParentHandlers(false);
+        return new UserInterfaceHeadless(logger, new Config(logger, properties));
+    }
+
+    @Test
+    void calls_StateKeptAndCounted() {
+        UserInterfaceHeadless ui = headless();
+
+        ui.placeCard(7, 3);
+        ui.placeCard(8, 4);
+        ui.placeToken(1, 3);
+        ui.placeToken(0, 4);
+        ui.removeTokens(3);
+        ui.setScore(0, 2);
+        ui.setCountdown(4500, true);
+        ui.removeCard(4);
+        ui.announceWinner(new int[]{0});
+        ui.dispose();
+
+        assertEquals(7, ui.card(3));
+        assertEquals(-1, ui.card(4));
+        assertFalse(ui.hasToken(1, 3));
+        assertTrue(ui.hasToken(0, 4));
+        assertEquals(2, ui.score(0));
+        assertEquals(4500, ui.countdown());
+        assertTrue(ui.warn());
+        assertArrayEquals(new int[]{0}, ui.winners());
+        assertTrue(ui.disposed());
+        assertEquals(2, ui.count(UserInterfaceHeadless.Call.PLACE_CARD));
+        assertEquals(0, ui.count(UserInterfaceHeadless.Call.FREEZE));
+        assertTrue(ui.maxGapMillis(UserInterfaceHeadless.Call.PLACE_CARD) > 0);
+    }
+}
@@ -0,0 +1,125 @@
+package bguspl.set;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class VirtualClockTest {
+
+    @Test
+    void sleep_TimeJumpsWhenAllGameThreadsSleep() throws InterruptedException {
+        VirtualClock clock = new VirtualClock();
+        AtomicLong wokeAt = new AtomicLong();
+        CountDownLatch started = new CountDownLatch(1);
+        Thread gameThread = new Thread(clock.track("game", () -> {
+            started.countDown();
+            try {
+                for (int i = 0; i < 60; i++)
+                    clock.sleep(1000);
+            } catch (InterruptedException ignored) {
+            }
+        }));
+        Thread other = new Thread(clock.track("other", () -> { // holds the time back between reading it and sleeping
+            try {
+                long before = clock.millis();
+                clock.sleep(2500);
+                wokeAt.set(clock.millis() - before);
+            } catch (InterruptedException ignored) {
+            }
+        }));
+
+        long start = System.nanoTime();
+        gameThread.start();
+        started.await();
+        other.start();
+        gameThread.join();
+        other.join();
+
+        assertTrue(clock.millis() >= 60_000);
+        assertTrue(wokeAt.get() >= 2500 && wokeAt.get() <= 3500, "slept " + wokeAt.get());
+        assertTrue(System.nanoTime() - start < 5_000_000_000L); // a virtual minute, in much less than a real one
+    }
+
+    @Test
+    void sleep_TimeWaitsForTheGameThreadsThatRun() throws InterruptedException {
+        VirtualClock clock = new VirtualClock();
+        CountDownLatch working = new CountDownLatch(1);
+        AtomicBoolean released = new AtomicBoolean();
+        AtomicLong workedAt = new AtomicLong(-1);
+        Thread worker = new Thread(clock.track("worker", () -> {
+            working.countDown();
+            long end = System.nanoTime() + 50_000_000;
+            while (System.nanoTime() < end) Thread.yield(); // busy, as a player checking a set
+            workedAt.set(clock.millis());
+            try {
+                clock.awaitUntil(released::get); // then waits, as a player waiting for a key press
+            } catch (InterruptedException ignored) {
+            }
+        }));
+        worker.start();
+        working.await();
+        clock.sleep(1000); // waits for the worker to be done working
+
+        assertEquals(0, workedAt.get());
+        assertEquals(1000, clock.millis());
+        released.set(true);
+        worker.join();
+    }
+
+    @Test
+    void awaitUntil_TimeWaitsForTheThreadWhoseConditionHolds() throws InterruptedException {
+        VirtualClock clock = new VirtualClock();
+        AtomicBoolean pressed = new AtomicBoolean();
+        AtomicLong tookAt = new AtomicLong(-1);
+        Thread player = new Thread(clock.track("player", () -> {
+            try {
+                clock.awaitUntil(pressed::get);
+                Thread.sleep(20); // slow to get going, as on a loaded machine
+                tookAt.set(clock.millis());
+            } catch (InterruptedException ignored) {
+            }
+        }));
+        Thread computer = new Thread(clock.track("computer", () -> {
+            try {
+                clock.sleep(500);
+                pressed.set(true);
+                clock.sleep(1000); // the player has its key press and must take it before the time moves on
+            } catch (InterruptedException ignored) {
+            }
+        }));
+        player.start();
+        computer.start();
+        player.join();
+        computer.join();
+
+        assertEquals(500, tookAt.get());
+        assertEquals(1500, clock.millis());
+    }
+
+    @Test
+    void interrupt_WakesAThreadWaitingOnTheClock() throws InterruptedException {
+        VirtualClock clock = new VirtualClock();
+        AtomicBoolean interrupted = new AtomicBoolean();
+        CountDownLatch waiting = new CountDownLatch(1);
+        Thread player = new Thread(clock.track("player", () -> {
+            waiting.countDown();
+            try {
+                clock.awaitUntil(() -> false);
+            } catch (InterruptedException e) {
+                interrupted.set(true);
+            }
+        }));
+        player.start();
+        waiting.await();
+        clock.interrupt(player);
+        player.join();
+
+        assertTrue(interrupted.get());
+        assertEquals(0, clock.millis());
+    }
+}
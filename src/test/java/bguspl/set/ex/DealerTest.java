@@ -0,0 +1,55 @@
+package bguspl.set.ex;
+
+import bguspl.set.Config;
+import bguspl.set.Env;
+import bguspl.set.UserInterfaceHeadless;
+import bguspl.set.UtilImpl;
+import org.junit.jupiter.api.Test;
+
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DealerTest {
+
+    @Test
+    void terminate_StopsFrozenPlayersWithinTheShutdownTimeout() throws InterruptedException {
+        Properties properties = new Properties();
+        properties.put("HumanPlayers", "0");
+        properties.put("ComputerPlayers", "2");
+        properties.put("ComputerSkill", "Random"); // guesses, so the players get penalties
+        properties.put("PenaltyFreezeSeconds", "60");
+        properties.put("PointFreezeSeconds", "60");
+        properties.put("TableDelaySeconds", "0");
+        properties.put("ShutdownTimeoutSeconds", "5");
+        properties.put("LogLevel", "OFF");
+        Logger logger = Logger.getLogger("DealerTest");
+        logger.setUseParentHandlers(false);
+        Config config = new Config(logger, properties);
+        Env env = new Env(logger, config, new UserInterfaceHeadless(logger, config), new UtilImpl(config));
+        Player[] players = new Player[config.players];
+        Table table = new Table(env);
+        Dealer dealer = new Dealer(env, table, players);
+        for (int i = 0; i < players.length; i++)
+            players[i] = new Player(env, dealer, table, i, false);
+
+        Thread dealerThread = new Thread(dealer, "dealer");
+        dealerThread.start();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while ((players[0].stats().snapshot().penalties == 0 || players[1].stats().snapshot().penalties == 0)
+                && System.nanoTime() < deadline)
+            Thread.sleep(10);
+
+        dealer.terminate(); // both players are frozen for a minute
+        dealerThread.join(TimeUnit.SECONDS.toMillis(10));
+
+        assertFalse(dealerThread.isAlive());
+        assertTrue(dealer.shutdownNanos() >= 0);
+        assertTrue(dealer.shutdownNanos() < TimeUnit.SECONDS.toNanos(2), "stopped in " + dealer.shutdownNanos() + "ns");
+        for (Player player : players)
+            assertFalse(player.computerThread().isAlive());
+    }
+}
@@ -0,0 +1,47 @@
+package bguspl.set.ex;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class DeckRandomTest {
+
+    private List<Integer> deck() {
+        return IntStream.range(0, 81).boxed().collect(Collectors.toCollection(ArrayList::new));
+    }
+
+    @Test
+    void shuffle_SameAsRandomOfTheSameSeed() {
+        List<Integer> expected = deck();
+        List<Integer> actual = deck();
+        Random random = new Random(7);
+        DeckRandom deckRandom = new DeckRandom(7);
+        for (int i = 0; i < 3; i++) {
+            Collections.shuffle(expected, random);
+            Collections.shuffle(actual, deckRandom);
+            assertEquals(expected, actual);
+        }
+    }
+
+    @Test
+    void setState_ContinuesFromTheSavedPosition() {
+        DeckRandom original = new DeckRandom(7);
+        Collections.shuffle(deck(), original);
+        long state = original.state();
+        List<Integer> expected = deck();
+        Collections.shuffle(expected, original);
+
+        DeckRandom resumed = new DeckRandom(123); // any seed, the state decides
+        resumed.setState(state);
+        List<Integer> actual = deck();
+        Collections.shuffle(actual, resumed);
+        assertEquals(expected, actual);
+    }
+}
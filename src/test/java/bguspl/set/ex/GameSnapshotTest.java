@@ -0,0 +1,74 @@
+package bguspl.set.ex;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class GameSnapshotTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void read_ReturnsTheSnapshotWritten() throws IOException {
+        Path file = dir.resolve("snapshot.bin");
+        GameSnapshot snapshot = new GameSnapshot(42, 99, 17, 12_345, new int[]{80, 3, 55},
+                new int[]{7, -1, 12, 40}, new int[][]{{0, 2}, {}}, new int[]{3, 1}, new long[]{2, 9});
+        snapshot.write(file);
+
+        GameSnapshot read = GameSnapshot.read(file);
+        assertFalse(Files.exists(dir.resolve("snapshot.bin.tmp")));
+        assertEquals(42, read.seed);
+        assertEquals(99, read.shuffleState);
+        assertEquals(17, read.tableVersion);
+        assertEquals(12_345, read.turnMillisLeft);
+        assertArrayEquals(new int[]{80, 3, 55}, read.deck);
+        assertArrayEquals(new int[]{7, -1, 12, 40}, read.slotToCard);
+        assertArrayEquals(new int[]{0, 2}, read.tokens[0]);
+        assertArrayEquals(new int[0], read.tokens[1]);
+        assertArrayEquals(new int[]{3, 1}, read.scores);
+        assertArrayEquals(new long[]{2, 9}, read.penalties);
+    }
+
+    @Test
+    void read_RejectsAFileThatIsNotASnapshot() throws IOException {
+        Path file = dir.resolve("other.bin");
+        Files.write(file, new byte[]{1, 2, 3, 4, 5, 6, 7, 8});
+
+        assertThrows(IOException.class, () -> GameSnapshot.read(file));
+    }
+
+    @Test
+    void read_KeepsCardsOfALargeDeck() throws IOException {
+        Path file = dir.resolve("large.bin");
+        int deckSize = 59_049; // 3^10, more cards than a short holds
+        GameSnapshot snapshot = new GameSnapshot(1, 0, 2, 3, new int[]{59_048, 40_000}, new int[]{32_768, -1},
+                new int[][]{{1}}, new int[]{0}, new long[]{0});
+        snapshot.write(file);
+
+        GameSnapshot read = GameSnapshot.read(file);
+        assertArrayEquals(new int[]{59_048, 40_000}, read.deck);
+        assertArrayEquals(new int[]{32_768, -1}, read.slotToCard);
+        assertNull(read.mismatch(deckSize, 2, 1));
+    }
+
+    @Test
+    void mismatch_RejectsCardsOutsideTheDeck() {
+        GameSnapshot snapshot = new GameSnapshot(1, 0, 2, 3, new int[]{5, 81}, new int[]{7, -1},
+                new int[][]{{0}}, new int[]{0}, new long[]{0});
+
+        assertNotNull(snapshot.mismatch(81, 2, 1));
+        assertNotNull(snapshot.mismatch(100, 3, 1)); // a different table
+        assertNull(snapshot.mismatch(100, 2, 1));
+    }
+}
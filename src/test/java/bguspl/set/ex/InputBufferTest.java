@@ -0,0 +1,129 @@
+package bguspl.set.ex;
+
+import bguspl.set.VirtualClock;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class InputBufferTest {
+
+    @Test
+    void offer_TakenInOrder() throws InterruptedException {
+        InputBuffer buffer = new InputBuffer(3, 0, 3);
+        buffer.offer(4);
+        buffer.offer(7);
+
+        assertEquals(4, buffer.take());
+        assertEquals(7, buffer.take());
+        assertEquals(0, buffer.size());
+    }
+
+    @Test
+    void offer_StampTravelsWithTheKeyPress() throws InterruptedException {
+        InputBuffer buffer = new InputBuffer(3, 0, 3);
+        buffer.offer(4, 100);
+        buffer.offer(7, 200);
+
+        assertEquals(4, buffer.take());
+        assertEquals(100, buffer.lastStamp());
+        assertEquals(7, buffer.take());
+        assertEquals(200, buffer.lastStamp());
+    }
+
+    @Test
+    void offer_DroppedWhenFull() {
+        InputBuffer buffer = new InputBuffer(2, 0, 2);
+
+        assertTrue(buffer.offer(1));
+        assertTrue(buffer.offer(2));
+        assertFalse(buffer.offer(3));
+        assertEquals(1, buffer.dropped());
+        assertEquals(2, buffer.size());
+    }
+
+    @Test
+    void offer_SameSlotTwiceInARowCancelsOut() throws InterruptedException {
+        InputBuffer buffer = new InputBuffer(3, 0, 3);
+        buffer.offer(6);
+        buffer.offer(5);
+        buffer.offer(5);
+
+        assertEquals(2, buffer.coalesced());
+        assertEquals(6, buffer.take());
+        assertEquals(-1, buffer.poll());
+    }
+
+    @Test
+    void offer_SameSlotWithPressesBetweenIsKept() throws InterruptedException {
+        InputBuffer buffer = new InputBuffer(3, 0, 3);
+        buffer.offer(5);
+        buffer.offer(6);
+        buffer.offer(5);
+
+        assertEquals(0, buffer.coalesced());
+        assertEquals(5, buffer.take());
+        assertEquals(6, buffer.take());
+        assertEquals(5, buffer.take());
+    }
+
+    @Test
+    void offer_SameSlotAfterItWasTakenIsKept() throws InterruptedException {
+        InputBuffer buffer = new InputBuffer(3, 0, 3);
+        buffer.offer(5);
+        assertEquals(5, buffer.take());
+        buffer.offer(5);
+
+        assertEquals(0, buffer.coalesced());
+        assertEquals(5, buffer.take());
+    }
+
+    @Test
+    void offer_CancellingPressIsRateLimited() {
+        InputBuffer buffer = new InputBuffer(10, 0.001, 2);
+
+        assertTrue(buffer.offer(5));
+        assertTrue(buffer.offer(5)); // cancels the first, using the second token
+        assertFalse(buffer.offer(5));
+        assertEquals(2, buffer.coalesced());
+        assertEquals(1, buffer.dropped());
+    }
+
+    @Test
+    void offer_CancellingPressWhenFull() throws InterruptedException {
+        InputBuffer buffer = new InputBuffer(2, 0, 2);
+        buffer.offer(1);
+        buffer.offer(2);
+
+        assertTrue(buffer.offer(2));
+        assertEquals(1, buffer.take());
+        assertEquals(-1, buffer.poll());
+    }
+
+    @Test
+    void offer_RateLimitGoesByTheGameClock() throws InterruptedException {
+        InputBuffer buffer = new InputBuffer(10, 100, 1, new VirtualClock()); // the virtual time does not pass here
+
+        assertTrue(buffer.offer(1));
+        Thread.sleep(50); // five tokens' worth of the wall clock
+        assertFalse(buffer.offer(2));
+        assertEquals(1, buffer.dropped());
+    }
+
+    @Test
+    void constructor_RejectsNonPositiveCapacity() {
+        assertThrows(IllegalArgumentException.class, () -> new InputBuffer(0, 0, 1));
+    }
+
+    @Test
+    void offer_DroppedWhenRateLimited() {
+        InputBuffer buffer = new InputBuffer(10, 0.001, 2);
+
+        assertTrue(buffer.offer(1));
+        assertTrue(buffer.offer(2));
+        assertFalse(buffer.offer(3));
+        assertEquals(1, buffer.dropped());
+    }
+}
@@ -0,0 +1,54 @@
+package bguspl.set.ex;
+
+import bguspl.set.Config;
+import bguspl.set.Env;
+import bguspl.set.UserInterfaceHeadless;
+import bguspl.set.UtilImpl;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Properties;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * The flight recorder events of a player (left out of the Java 8 builds, like the events themselves).
+ */
+class PlayerEventsTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void penalty_IsRecordedAsAFreezeEvent() throws IOException {
+        Properties properties = new Properties();
+        properties.put("PenaltyFreezeSeconds", "0");
+        properties.put("LogLevel", "OFF");
+        Logger logger = Logger.getLogger("PlayerEventsTest");
+        logger.setUseParentHandlers(false);
+        Config config = new Config(logger, properties);
+        Env env = new Env(logger, config, new UserInterfaceHeadless(logger, config), new UtilImpl(config));
+        Player player = new Player(env, null, new Table(env), 1, false);
+
+        Path file = dir.resolve("penalty.jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable("bguspl.set.Freeze");
+            recording.start();
+            player.penalty();
+            recording.stop();
+            recording.dump(file);
+        }
+
+        List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+        assertEquals(1, events.size());
+        assertEquals(1, events.get(0).getInt("player"));
+        assertEquals("penalty", events.get(0).getString("reason"));
+    }
+}
@@ -66,6 +66,7 @@ class PlayerTest {
 
         // check that the score was increased correctly
         assertEquals(expectedScore, player.score());
+        assertEquals(expectedScore, player.stats().snapshot().score);
 
         // check that ui.setScore was called with the player's id and the correct score
         verify(ui).setScore(eq(player.id), eq(expectedScore));
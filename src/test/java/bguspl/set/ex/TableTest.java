@@ -7,11 +7,14 @@ import bguspl.set.Util;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.util.Arrays;
 import java.util.List;
 import java.util.Properties;
 import java.util.logging.Logger;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
 
 class TableTest {
 
@@ -95,6 +98,58 @@ class TableTest {
         placeSomeCardsAndAssert();
     }
 
+    @Test
+    void setsOnTable_OneSetOnTable() {
+        fillAllSlots(); // cards 0, 1, 2 (a set) and 3 (not part of any set on the table)
+
+        List<int[]> sets = table.setsOnTable();
+        assertEquals(1, sets.size());
+        assertArrayEquals(new int[]{0, 1, 2}, sets.get(0));
+    }
+
+    @Test
+    void setsOnTable_CachedUntilTableChanges() {
+        fillAllSlots();
+
+        List<int[]> sets = table.setsOnTable();
+        assertSame(sets, table.setsOnTable());
+
+        table.removeCard(1);
+        assertEquals(0, table.setsOnTable().size());
+    }
+
+    @Test
+    void setsOnTable_SkipsSetsWithACardNoLongerOnTheTable() {
+        Properties properties = new Properties();
+        properties.put("Rows", "2");
+        properties.put("Columns", "3");
+        properties.put("FeatureSize", "4");
+        properties.put("FeatureCount", "2");
+        properties.put("TableDelaySeconds", "0");
+        properties.put("PlayerKeys1", "81,87,69,82,65,83");
+        properties.put("PlayerKeys2", "85,73,79,80,74,75");
+        MockLogger logger = new MockLogger();
+        Config config = new Config(logger, properties);
+        Integer[] slotToCard = new Integer[config.tableSize];
+        Integer[] cardToSlot = new Integer[config.deckSize];
+        for (int slot = 0; slot < 4; slot++) {
+            slotToCard[slot] = slot + 4;
+            cardToSlot[slot + 4] = slot;
+        }
+        MockUtil util = new MockUtil() {
+            @Override
+            public List<int[]> findSets(List<Integer> deck, int count) {
+                // the second set has a card that was removed while the sets were being found
+                return Arrays.asList(new int[]{4, 5, 6, 7}, new int[]{9, 4, 5, 6});
+            }
+        };
+        Table table = new Table(new Env(logger, config, new MockUserInterface(), util), slotToCard, cardToSlot);
+
+        List<int[]> sets = table.setsOnTable();
+        assertEquals(1, sets.size());
+        assertArrayEquals(new int[]{0, 1, 2, 3}, sets.get(0));
+    }
+
     static class MockUserInterface implements UserInterface {
         @Override
         public void dispose() {}